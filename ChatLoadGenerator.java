@@ -0,0 +1,135 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Load on the chatbot's HTTP server: each connection is one conversation on a keep-alive socket,
+// sending POST /chat with its own X-Session back to back and waiting for each reply. Reports the
+// throughput over all connections and the latency percentiles of single requests.
+// Without a port, starts a server in this process with the built-in rules on a free port.
+//
+//   javac Chatbot.java ChatLoadGenerator.java
+//   java ChatLoadGenerator [connections] [requests per connection] [port of a running server]
+//
+// Exits with status 1 if any request failed or got anything but 200.
+public class ChatLoadGenerator {
+    static final String[] MESSAGES = {
+        "Hi there!", "How are you today?", "what is your name?", "I need help", "whats ur name", "bye",
+        "tell me something about the weather", "hello",
+    };
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        ChatServer server = null;
+        int port;
+        if (args.length > 2) {
+            port = Integer.parseInt(args[2]);
+        } else {
+            server = new ChatServer(new FaqBot(FaqBot.defaultRules()), 0, Runtime.getRuntime().availableProcessors() * 2);
+            server.start();
+            port = server.server.getAddress().getPort();
+        }
+
+        // A short first run warms up the server and this client; only the second is reported
+        run(port, connections, Math.max(1, requests / 10));
+        long[] errors = new long[1];
+        long start = System.nanoTime();
+        long[] latencies = run(port, connections, requests, errors);
+        long elapsed = System.nanoTime() - start;
+        if (server != null) server.stop();
+
+        Arrays.sort(latencies);
+        System.out.printf("%d connections x %,d requests on port %d%n", connections, requests, port);
+        System.out.printf("throughput: %,.0f requests/s over %.2f s%n", latencies.length / (elapsed / 1e9),
+                elapsed / 1e9);
+        System.out.printf("latency: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                percentile(latencies, 50) / 1e6, percentile(latencies, 90) / 1e6, percentile(latencies, 99) / 1e6,
+                percentile(latencies, 99.9) / 1e6, percentile(latencies, 100) / 1e6);
+        if (errors[0] > 0) {
+            System.out.printf("%,d requests failed%n", errors[0]);
+            System.exit(1);
+        }
+    }
+
+    static long[] run(int port, int connections, int requests) throws Exception {
+        return run(port, connections, requests, new long[1]);
+    }
+
+    // Every connection's latencies, in nanoseconds; failed requests are counted in errors[0]
+    static long[] run(int port, int connections, int requests, long[] errors) throws Exception {
+        long[][] latencies = new long[connections][];
+        ExecutorService pool = Executors.newFixedThreadPool(connections);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Integer>> failures = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            int connection = c;
+            failures.add(pool.submit(() -> {
+                latencies[connection] = new long[requests];
+                int failed = 0, done = 0;
+                try (Socket socket = new Socket("localhost", port)) {
+                    socket.setTcpNoDelay(true);
+                    OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                    InputStream in = new BufferedInputStream(socket.getInputStream());
+                    go.await();
+                    for (int i = 0; i < requests; i++) {
+                        byte[] body = MESSAGES[(connection + i) % MESSAGES.length].getBytes(StandardCharsets.UTF_8);
+                        long start = System.nanoTime();
+                        out.write(("POST /chat HTTP/1.1\r\nHost: localhost\r\nX-Session: load-" + connection
+                                + "\r\nContent-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                        out.write(body);
+                        out.flush();
+                        if (!readReply(in)) failed++;
+                        latencies[connection][done++] = System.nanoTime() - start;
+                    }
+                } catch (IOException e) {
+                    // The rest of this connection's requests never got an answer
+                    System.out.println("Connection " + connection + " failed: " + e.getMessage());
+                    latencies[connection] = Arrays.copyOf(latencies[connection], done);
+                    return failed + requests - done;
+                }
+                return failed;
+            }));
+        }
+        go.countDown();
+        for (Future<Integer> failure : failures) errors[0] += failure.get();
+        pool.shutdown();
+        return Arrays.stream(latencies).filter(l -> l != null).flatMapToLong(Arrays::stream).toArray();
+    }
+
+    // Reads one response off the connection; true if it was a 200
+    static boolean readReply(InputStream in) throws IOException {
+        String status = readLine(in);
+        int length = 0;
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) length = Integer.parseInt(line.substring(15).trim());
+        }
+        if (in.readNBytes(length).length < length) throw new EOFException("reply cut short");
+        return status.startsWith("HTTP/1.1 200");
+    }
+
+    static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int ch = in.read(); ch != '\n'; ch = in.read()) {
+            if (ch < 0) throw new EOFException("connection closed");
+            if (ch != '\r') line.append((char) ch);
+        }
+        return line.toString();
+    }
+
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p / 100 * sorted.length) - 1)];
+    }
+}
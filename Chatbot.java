@@ -1,81 +1,827 @@
-import java.awt.*;
-import java.awt.event.*;
-import java.util.HashMap;
-import javax.swing.*;
-
-public class Chatbot extends JFrame {
-    private JTextArea chatArea;
-    private JTextField inputField;
-    private JButton sendButton;
-
-    private HashMap<String, String> faqResponses;
-
-    public Chatbot() {
-        setTitle("AI Chatbot");
-        setSize(500, 500);
-        setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setLayout(new BorderLayout());
-
-        chatArea = new JTextArea();
-        chatArea.setEditable(false);
-        chatArea.setFont(new Font("Arial", Font.PLAIN, 14));
-        JScrollPane scrollPane = new JScrollPane(chatArea);
-
-        inputField = new JTextField();
-        sendButton = new JButton("Send");
-
-        JPanel panel = new JPanel(new BorderLayout());
-        panel.add(inputField, BorderLayout.CENTER);
-        panel.add(sendButton, BorderLayout.EAST);
-
-        add(scrollPane, BorderLayout.CENTER);
-        add(panel, BorderLayout.SOUTH);
-
-        // Rule-based FAQ responses
-        faqResponses = new HashMap<>();
-        faqResponses.put("hi", "Hello! How can I help you?");
-        faqResponses.put("hello", "Hi there! What can I do for you?");
-        faqResponses.put("how are you", "I'm just code, but I'm running great!");
-        faqResponses.put("what is your name", "I'm your AI chatbot.");
-        faqResponses.put("bye", "Goodbye! Have a great day!");
-        faqResponses.put("help", "You can ask me things like 'What is your name?' or 'How are you?'");
-
-        ActionListener sendAction = e -> processInput();
-
-        sendButton.addActionListener(sendAction);
-        inputField.addActionListener(sendAction);
-
-        setVisible(true);
-    }
-
-    private void processInput() {
-        String input = inputField.getText().trim();
-        if (input.isEmpty()) return;
-
-        chatArea.append("You: " + input + "\n");
-        inputField.setText("");
-
-        String response = getResponse(input.toLowerCase());
-        chatArea.append("Bot: " + response + "\n");
-    }
-
-    private String getResponse(String input) {
-        // Simple NLP preprocessing: remove punctuation, lower case
-        input = input.replaceAll("[^a-z0-9 ]", "");
-
-        // Check keywords in input
-        for (String key : faqResponses.keySet()) {
-            if (input.contains(key)) {
-                return faqResponses.get(key);
-            }
-        }
-
-        // Default response if no keyword matches
-        return "Sorry, I didn't understand that. Could you please rephrase?";
-    }
-
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(Chatbot::new);
-    }
-}
-
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import javax.swing.*;
+
+// FAQ keywords compiled into an Aho-Corasick automaton. One pass over a message finds the keywords it
+// contains at a cost that does not grow with the number of rules. The longest keyword found wins; among
+// equally long ones, the rule added first.
+class KeywordMatcher {
+    static final int ALPHABET = 37; // space, 0-9, a-z, numbered in character order
+
+    final int[] edgeStart;  // edges of state s are edgeStart[s] .. edgeStart[s + 1] - 1
+    final byte[] edgeSymbol;
+    final int[] edgeTarget;
+    final int[] rootNext = new int[ALPHABET];
+    final int[] fail;
+    final int[] best;    // longest rule matched on reaching each state, or -1
+    final int[] lengths; // normalized keyword length of each rule
+
+    KeywordMatcher(List<String> keywords) {
+        int rules = keywords.size();
+        lengths = new int[rules];
+        String[] normalized = new String[rules];
+        int chars = 0;
+        for (int i = 0; i < rules; i++) {
+            normalized[i] = normalize(keywords.get(i));
+            lengths[i] = normalized[i].length();
+            chars += lengths[i];
+        }
+
+        // Insert in sorted order so each keyword extends the path of the one before it
+        Integer[] order = new Integer[rules];
+        for (int i = 0; i < rules; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> normalized[a].compareTo(normalized[b]));
+        int[] from = new int[chars];
+        byte[] symbols = new byte[chars];
+        int[] terminal = new int[chars + 1];
+        Arrays.fill(terminal, -1);
+        int[] path = new int[chars + 1];
+        int states = 1;
+        String previous = "";
+        for (int rule : order) {
+            String key = normalized[rule];
+            if (key.isEmpty()) continue;
+            int common = 0;
+            while (common < Math.min(key.length(), previous.length()) && key.charAt(common) == previous.charAt(common)) {
+                common++;
+            }
+            for (int d = common; d < key.length(); d++) {
+                int child = states++;
+                from[child - 1] = path[d];
+                symbols[child - 1] = (byte) symbol(key.charAt(d));
+                path[d + 1] = child;
+            }
+            int end = path[key.length()];
+            if (terminal[end] < 0 || rule < terminal[end]) terminal[end] = rule;
+            previous = key;
+        }
+
+        // Group each state's edges together; state c is the target of edge c - 1
+        int edges = states - 1;
+        edgeStart = new int[states + 1];
+        edgeSymbol = new byte[edges];
+        edgeTarget = new int[edges];
+        for (int e = 0; e < edges; e++) edgeStart[from[e] + 1]++;
+        for (int s = 0; s < states; s++) edgeStart[s + 1] += edgeStart[s];
+        int[] fill = Arrays.copyOf(edgeStart, states);
+        for (int e = 0; e < edges; e++) {
+            int at = fill[from[e]]++;
+            edgeSymbol[at] = symbols[e];
+            edgeTarget[at] = e + 1;
+        }
+        Arrays.fill(rootNext, -1);
+        for (int e = edgeStart[0]; e < edgeStart[1]; e++) rootNext[edgeSymbol[e]] = edgeTarget[e];
+
+        // Failure links and best matches, breadth first so shorter states are ready first
+        fail = new int[states];
+        best = new int[states];
+        best[0] = -1;
+        int[] queue = new int[states];
+        int head = 0, tail = 0;
+        queue[tail++] = 0;
+        while (head < tail) {
+            int s = queue[head++];
+            for (int e = edgeStart[s]; e < edgeStart[s + 1]; e++) {
+                int t = edgeTarget[e];
+                fail[t] = s == 0 ? 0 : step(fail[s], edgeSymbol[e]);
+                best[t] = terminal[t] >= 0 ? terminal[t] : best[fail[t]];
+                queue[tail++] = t;
+            }
+        }
+    }
+
+    // Lower-cases letters, keeps digits and spaces and drops everything else; -1 means dropped
+    static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a' + 11;
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 11;
+        if (c >= '0' && c <= '9') return c - '0' + 1;
+        return c == ' ' ? 0 : -1;
+    }
+
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            if (symbol(text.charAt(i)) >= 0) sb.append(Character.toLowerCase(text.charAt(i)));
+        }
+        return sb.toString();
+    }
+
+    int next(int state, int symbol) {
+        if (state == 0) return rootNext[symbol];
+        for (int e = edgeStart[state]; e < edgeStart[state + 1]; e++) {
+            if (edgeSymbol[e] == symbol) return edgeTarget[e];
+        }
+        return -1;
+    }
+
+    int step(int state, int symbol) {
+        while (true) {
+            int next = next(state, symbol);
+            if (next >= 0) return next;
+            if (state == 0) return 0;
+            state = fail[state];
+        }
+    }
+
+    // Index of the best rule whose keyword occurs in the normalized text, or -1.
+    // Normalizes as it goes, so nothing is allocated.
+    int match(CharSequence text) {
+        int state = 0, found = -1;
+        for (int i = 0; i < text.length(); i++) {
+            int symbol = symbol(text.charAt(i));
+            if (symbol < 0) continue;
+            state = step(state, symbol);
+            int rule = best[state];
+            if (rule >= 0 && (found < 0 || lengths[rule] > lengths[found]
+                    || lengths[rule] == lengths[found] && rule < found)) {
+                found = rule;
+            }
+        }
+        return found;
+    }
+}
+
+// Fallback for messages that contain no keyword: every keyword is embedded once as a hashed
+// character-trigram TF-IDF vector, and a message is answered by the most similar one. Vectors are unit
+// length and stored as postings by dimension, so a query only sweeps the rules sharing a dimension with
+// it, and a rule costs only the few dimensions its own trigrams hit. Hashing makes unrelated texts collide, so the best few
+// by cosine are only candidates: one is accepted if enough of the trigrams themselves are shared.
+class SimilarityIndex {
+    static final int DIM = 256;
+    static final float MIN_SIMILARITY = 0.4f; // cosine a candidate needs
+    static final double MIN_OVERLAP = 0.5;    // Dice coefficient of the exact trigram sets an answer needs
+    static final int CANDIDATES = 8;
+
+    final int rules;
+    final String[] keywords;
+    // Rules with a non-zero component d, in rule order, and those components
+    final int[][] postingRules = new int[DIM][];
+    final float[][] postingWeights = new float[DIM][];
+    final float[] idf = new float[DIM];
+    // Per-thread scores by rule, left all zero after every query so they can be reused
+    final ThreadLocal<float[]> scratch;
+
+    SimilarityIndex(List<String> keywords) {
+        rules = keywords.size();
+        this.keywords = keywords.toArray(new String[0]);
+        scratch = ThreadLocal.withInitial(() -> new float[rules]);
+        float[] vector = new float[DIM];
+        int[] df = new int[DIM];
+        for (String keyword : keywords) {
+            Arrays.fill(vector, 0);
+            embed(keyword, vector);
+            for (int d = 0; d < DIM; d++) {
+                if (vector[d] > 0) df[d]++;
+            }
+        }
+        for (int d = 0; d < DIM; d++) {
+            idf[d] = (float) (Math.log((rules + 1.0) / (df[d] + 1.0)) + 1);
+            postingRules[d] = new int[df[d]];
+            postingWeights[d] = new float[df[d]];
+        }
+        int[] filled = new int[DIM];
+        for (int r = 0; r < rules; r++) {
+            Arrays.fill(vector, 0);
+            embed(keywords.get(r), vector);
+            if (!weigh(vector)) continue;
+            for (int d = 0; d < DIM; d++) {
+                if (vector[d] == 0) continue;
+                postingRules[d][filled[d]] = r;
+                postingWeights[d][filled[d]++] = vector[d];
+            }
+        }
+    }
+
+    // Trigrams of the normalized text, padded with a space at each end, each as a number below 37^3
+    static int[] trigrams(CharSequence text) {
+        int[] found = new int[text.length() + 1];
+        int count = 0;
+        int a = 0, b = 0; // previous two symbols; 0 is the space
+        for (int i = 0; i <= text.length(); i++) {
+            int c = i < text.length() ? KeywordMatcher.symbol(text.charAt(i)) : 0;
+            if (c < 0 || (i == text.length() && count == 0)) continue;
+            found[count++] = (a * KeywordMatcher.ALPHABET + b) * KeywordMatcher.ALPHABET + c;
+            a = b;
+            b = c;
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    // Adds the trigram counts of the text
+    static void embed(CharSequence text, float[] out) {
+        for (int trigram : trigrams(text)) out[(trigram * 0x9E3779B1) >>> 24]++; // top 8 bits pick one of DIM
+    }
+
+    // Turns counts into unit-length TF-IDF weights; returns false for an empty vector
+    boolean weigh(float[] v) {
+        double norm = 0;
+        for (int d = 0; d < DIM; d++) {
+            v[d] *= idf[d];
+            norm += v[d] * v[d];
+        }
+        if (norm == 0) return false;
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int d = 0; d < DIM; d++) v[d] *= scale;
+        return true;
+    }
+
+    // 2 |A & B| / (|A| + |B|) over the distinct trigrams of two texts
+    static double overlap(int[] a, int[] b) {
+        a = Arrays.stream(a).distinct().sorted().toArray();
+        b = Arrays.stream(b).distinct().sorted().toArray();
+        if (a.length + b.length == 0) return 0;
+        int shared = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return 2.0 * shared / (a.length + b.length);
+    }
+
+    // Rule whose keyword is most similar to the text (the first on a tie), or -1 if none is similar enough
+    int nearest(CharSequence text) {
+        int[] query = trigrams(text);
+        float[] vector = new float[DIM];
+        embed(text, vector);
+        if (!weigh(vector)) return -1;
+
+        float[] scores = scratch.get();
+        for (int d = 0; d < DIM; d++) {
+            float q = vector[d];
+            if (q == 0) continue;
+            int[] ids = postingRules[d];
+            float[] weights = postingWeights[d];
+            for (int i = 0; i < ids.length; i++) scores[ids[i]] += q * weights[i];
+        }
+
+        // The best few by cosine, best first; the first rule wins a tie. Scores are cleared on the way.
+        int[] candidates = new int[CANDIDATES];
+        float[] candidateScores = new float[CANDIDATES];
+        int found = 0;
+        for (int r = 0; r < rules; r++) {
+            float score = scores[r];
+            if (score == 0) continue;
+            scores[r] = 0;
+            if (score < MIN_SIMILARITY || found == CANDIDATES && score <= candidateScores[found - 1]) continue;
+            int at = Math.min(found, CANDIDATES - 1);
+            while (at > 0 && candidateScores[at - 1] < score) {
+                candidates[at] = candidates[at - 1];
+                candidateScores[at] = candidateScores[at - 1];
+                at--;
+            }
+            candidates[at] = r;
+            candidateScores[at] = score;
+            if (found < CANDIDATES) found++;
+        }
+
+        int best = -1;
+        double bestOverlap = MIN_OVERLAP;
+        for (int k = 0; k < found; k++) {
+            double overlap = overlap(query, trigrams(keywords[candidates[k]]));
+            if (overlap > bestOverlap || overlap == bestOverlap && best < 0) {
+                bestOverlap = overlap;
+                best = candidates[k];
+            }
+        }
+        return best;
+    }
+}
+
+// Least recently used normalized messages and their replies, with hit and miss counts. Bounded in
+// entries and in key length, so repeated questions skip matching without memory growing under load.
+// Split into segments by key hash, each with its own lock and its own LRU order, so concurrent
+// requests for different messages rarely wait on each other.
+class ResponseCache {
+    static final int ENTRIES = 10_000;
+    static final int MAX_KEY = 256; // longer messages are answered but not remembered
+    static final int SEGMENTS = 16; // a power of two
+
+    static class Segment extends LinkedHashMap<String, String> {
+        private static final long serialVersionUID = 1L;
+
+        final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    final Segment[] segments = new Segment[SEGMENTS];
+    final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+    ResponseCache() {
+        for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment(ENTRIES / SEGMENTS);
+    }
+
+    // High bits of the mixed hash: the low ones pick the bucket inside the segment's own table
+    Segment segment(String key) {
+        return segments[(key.hashCode() * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(SEGMENTS))];
+    }
+
+    String get(String key) {
+        Segment segment = segment(key);
+        String reply;
+        synchronized (segment) {
+            reply = segment.get(key);
+        }
+        if (reply != null) hits.increment();
+        else misses.increment();
+        return reply;
+    }
+
+    void put(String key, String reply) {
+        if (key.length() > MAX_KEY) return;
+        Segment segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, reply);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    String stats() {
+        long hit = hits.sum(), miss = misses.sum(), lookups = hit + miss;
+        return String.format("cache: %d entries, %d hits, %d misses (%.1f%% hit rate)", size(), hit, miss,
+                lookups == 0 ? 0.0 : 100.0 * hit / lookups);
+    }
+}
+
+// One compiled knowledge base. Never modified once built, so it can be shared between threads freely.
+class FaqRules {
+    final KeywordMatcher matcher;
+    final SimilarityIndex similar;
+    final String[] answers; // by rule, in the order the keywords were added
+    final ResponseCache cache = new ResponseCache(); // replaced along with the rules, so never stale
+
+    FaqRules(Map<String, String> rules) {
+        // Compile the keywords once; each message is then matched in a single pass
+        List<String> keywords = new ArrayList<>(rules.keySet());
+        matcher = new KeywordMatcher(keywords);
+        similar = new SimilarityIndex(keywords);
+        answers = rules.values().toArray(new String[0]);
+    }
+}
+
+// The answering core, shared by the window and the server. The current rules are swapped in whole, so
+// any number of threads may call respond at the same time, even during a reload.
+class FaqBot {
+    static final String FALLBACK = "Sorry, I didn't understand that. Could you please rephrase?";
+
+    final AtomicReference<FaqRules> rules;
+
+    FaqBot(Map<String, String> rules) {
+        this.rules = new AtomicReference<>(new FaqRules(rules));
+    }
+
+    // Reads rules from a file, or from every *.faq file of a directory in name order.
+    // One rule per line as "keyword = answer"; blank lines and lines starting with # are skipped.
+    static Map<String, String> load(Path path) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(path)) {
+            try (DirectoryStream<Path> faqs = Files.newDirectoryStream(path, "*.faq")) {
+                for (Path file : faqs) files.add(file);
+            }
+            files.sort(null);
+        } else {
+            files.add(path);
+        }
+        Map<String, String> rules = new LinkedHashMap<>();
+        for (Path file : files) {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                int split = line.indexOf('=');
+                if (split <= 0) throw new IOException(file + ":" + (i + 1) + ": expected \"keyword = answer\"");
+                rules.putIfAbsent(line.substring(0, split).trim(), line.substring(split + 1).trim());
+            }
+        }
+        return rules;
+    }
+
+    // Compiles the rules at path off to the side and swaps them in; if they cannot be read the
+    // current rules stay
+    boolean reload(Path path) {
+        try {
+            long start = System.nanoTime();
+            Map<String, String> loaded = load(path);
+            rules.set(new FaqRules(loaded));
+            System.out.printf("Loaded %d FAQ rules from %s in %d ms%n", loaded.size(), path,
+                    (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Keeping current FAQ rules: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Rule-based FAQ responses
+    static Map<String, String> defaultRules() {
+        Map<String, String> faqResponses = new LinkedHashMap<>();
+        faqResponses.put("hi", "Hello! How can I help you?");
+        faqResponses.put("hello", "Hi there! What can I do for you?");
+        faqResponses.put("how are you", "I'm just code, but I'm running great!");
+        faqResponses.put("what is your name", "I'm your AI chatbot.");
+        faqResponses.put("bye", "Goodbye! Have a great day!");
+        faqResponses.put("help", "You can ask me things like 'What is your name?' or 'How are you?'");
+        return faqResponses;
+    }
+
+    String respond(String input) {
+        // Case and punctuation never change the answer, so the normalized message is the cache key
+        FaqRules current = rules.get();
+        String key = KeywordMatcher.normalize(input);
+        String reply = current.cache.get(key);
+        if (reply == null) {
+            reply = answer(current, key);
+            current.cache.put(key, reply);
+        }
+        return reply;
+    }
+
+    String stats() {
+        return rules.get().cache.stats();
+    }
+
+    static String answer(FaqRules current, String input) {
+        // Match keywords in input; the matcher ignores case and punctuation
+        int rule = current.matcher.match(input);
+        if (rule >= 0) {
+            return current.answers[rule];
+        }
+
+        // Otherwise the closest keyword, if any is close enough
+        rule = current.similar.nearest(input);
+        if (rule >= 0) {
+            return current.answers[rule];
+        }
+
+        // Default response if no keyword matches
+        return FALLBACK;
+    }
+}
+
+// Reloads the bot's rules in the background whenever the rules file, or a file in the rules
+// directory, changes. Answers keep coming from the old rules until the new ones are compiled.
+class RulesWatcher implements Closeable {
+    static final long SETTLE_MILLIS = 200; // let a burst of writes finish before reading
+
+    final FaqBot bot;
+    final Path path;
+    final WatchService watcher;
+    final Thread thread;
+
+    RulesWatcher(FaqBot bot, Path path) throws IOException {
+        this.bot = bot;
+        this.path = path.toAbsolutePath();
+        Path dir = Files.isDirectory(this.path) ? this.path : this.path.getParent();
+        watcher = dir.getFileSystem().newWatchService();
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        thread = new Thread(this::run, "faq-reloader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void run() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= Files.isDirectory(path) || path.getFileName().equals(event.context());
+                }
+                key.reset();
+                if (!changed) continue;
+                Thread.sleep(SETTLE_MILLIS);
+                while ((key = watcher.poll()) != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+                bot.reload(path);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+}
+
+// The last lines of a conversation, bounded in lines and in characters; the oldest lines are dropped
+// first, so a long chat stays the same size.
+class Transcript {
+    final String[] lines;
+    final int maxChars;
+    int next, size, chars;
+
+    Transcript(int capacity) {
+        this(capacity, Integer.MAX_VALUE);
+    }
+
+    Transcript(int capacity, int maxChars) {
+        lines = new String[capacity];
+        this.maxChars = maxChars;
+    }
+
+    synchronized void add(String line) {
+        if (line.length() > maxChars) line = line.substring(0, maxChars);
+        if (size == lines.length) dropOldest();
+        while (chars + line.length() > maxChars) dropOldest();
+        lines[next] = line;
+        next = (next + 1) % lines.length;
+        size++;
+        chars += line.length();
+    }
+
+    private void dropOldest() {
+        int oldest = (next - size + lines.length) % lines.length;
+        chars -= lines[oldest].length();
+        lines[oldest] = null;
+        size--;
+    }
+
+    synchronized String text() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            sb.append(lines[(next - size + i + lines.length) % lines.length]).append('\n');
+        }
+        return sb.toString();
+    }
+}
+
+class Session {
+    static final int TRANSCRIPT_LINES = 100;
+    static final int TRANSCRIPT_CHARS = 8 * 1024;
+
+    final String id;
+    final Transcript transcript = new Transcript(TRANSCRIPT_LINES, TRANSCRIPT_CHARS);
+    volatile long lastSeen = System.currentTimeMillis();
+
+    Session(String id) {
+        this.id = id;
+    }
+}
+
+// Conversations by session id. A daemon sweeper drops sessions idle for longer than idleMillis, so
+// the store holds only the conversations still going on. Clients choose the ids, so the store is also
+// capped at maxSessions: going over drops the least recently seen tenth in one pass.
+class SessionStore implements Closeable {
+    final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    final long idleMillis;
+    final int maxSessions;
+    final ScheduledExecutorService sweeper;
+
+    SessionStore(long idleMillis, int maxSessions) {
+        this.idleMillis = idleMillis;
+        this.maxSessions = maxSessions;
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(idleMillis / 4, 1);
+        sweeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    Session get(String id) {
+        Session session = sessions.get(id);
+        if (session == null) {
+            session = sessions.computeIfAbsent(id, Session::new);
+            if (sessions.size() > maxSessions) evictOldest();
+        }
+        session.lastSeen = System.currentTimeMillis();
+        // An eviction running alongside this call may have dropped the session, even one just created
+        // here; put it back so the caller never writes to a transcript the store no longer holds
+        Session current = sessions.putIfAbsent(id, session);
+        if (current == null || current == session) return session;
+        current.lastSeen = session.lastSeen;
+        return current;
+    }
+
+    void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        sessions.values().removeIf(session -> session.lastSeen < cutoff);
+    }
+
+    // One thread trims at a time; the others keep going and find the store back under the cap
+    synchronized void evictOldest() {
+        int excess = sessions.size() - maxSessions;
+        if (excess <= 0) return;
+        long[] seen = sessions.values().stream().mapToLong(session -> session.lastSeen).sorted().toArray();
+        int drop = Math.min(seen.length, excess + maxSessions / 10);
+        long cutoff = seen[drop - 1];
+        sessions.values().removeIf(session -> session.lastSeen <= cutoff);
+    }
+
+    int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+}
+
+// Headless mode: answers each POST /chat, whose body is the message, with the reply as plain text.
+// Requests run on a fixed worker pool, so thousands of open conversations need no thread of their own.
+// An X-Session header keeps that conversation's transcript; GET /stats reports the cache and sessions.
+class ChatServer {
+    static final int MAX_MESSAGE = 4096; // bytes
+    static final long SESSION_IDLE_MILLIS = 30 * 60 * 1000;
+    static final int MAX_SESSIONS = 10_000;
+
+    final FaqBot bot;
+    final SessionStore sessions = new SessionStore(SESSION_IDLE_MILLIS, MAX_SESSIONS);
+    final HttpServer server;
+    final ExecutorService workers;
+
+    ChatServer(FaqBot bot, int port, int threads) throws IOException {
+        // Replies are small; without nodelay every exchange waits out the peer's delayed ACK.
+        // The JDK server closes idle keep-alive connections beyond 200, so allow one per conversation.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+        this.bot = bot;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.workers = Executors.newFixedThreadPool(threads);
+        server.setExecutor(workers);
+        server.createContext("/chat", this::handle);
+        server.createContext("/stats", this::stats);
+    }
+
+    void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] message = exchange.getRequestBody().readNBytes(MAX_MESSAGE + 1);
+            if (message.length > MAX_MESSAGE) {
+                exchange.sendResponseHeaders(413, -1);
+                return;
+            }
+            String input = new String(message, StandardCharsets.UTF_8);
+            String response = bot.respond(input);
+            String id = exchange.getRequestHeaders().getFirst("X-Session");
+            if (id != null) {
+                Transcript transcript = sessions.get(id).transcript;
+                transcript.add("You: " + input);
+                transcript.add("Bot: " + response);
+            }
+            reply(exchange, response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    void stats(HttpExchange exchange) throws IOException {
+        try {
+            reply(exchange, bot.stats() + "\nsessions: " + sessions.size() + " active\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    static void reply(HttpExchange exchange, String text) throws IOException {
+        byte[] reply = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, reply.length);
+        exchange.getResponseBody().write(reply);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    void stop() {
+        server.stop(0);
+        workers.shutdown();
+        sessions.close();
+    }
+}
+
+public class Chatbot extends JFrame {
+    private static final int VISIBLE_LINES = 500; // older lines scroll away for good
+
+    private JTextArea chatArea;
+    private JTextField inputField;
+    private JButton sendButton;
+
+    private final FaqBot bot;
+    private final Transcript transcript = new Transcript(VISIBLE_LINES);
+
+    public Chatbot(FaqBot bot) {
+        this.bot = bot;
+        setTitle("AI Chatbot");
+        setSize(500, 500);
+        setDefaultCloseOperation(EXIT_ON_CLOSE);
+        setLayout(new BorderLayout());
+
+        chatArea = new JTextArea();
+        chatArea.setEditable(false);
+        chatArea.setFont(new Font("Arial", Font.PLAIN, 14));
+        JScrollPane scrollPane = new JScrollPane(chatArea);
+
+        inputField = new JTextField();
+        sendButton = new JButton("Send");
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(inputField, BorderLayout.CENTER);
+        panel.add(sendButton, BorderLayout.EAST);
+
+        add(scrollPane, BorderLayout.CENTER);
+        add(panel, BorderLayout.SOUTH);
+
+        ActionListener sendAction = e -> processInput();
+
+        sendButton.addActionListener(sendAction);
+        inputField.addActionListener(sendAction);
+
+        setVisible(true);
+    }
+
+    private void processInput() {
+        String input = inputField.getText().trim();
+        if (input.isEmpty()) return;
+
+        transcript.add("You: " + input);
+        inputField.setText("");
+
+        String response = bot.respond(input);
+        transcript.add("Bot: " + response);
+        chatArea.setText(transcript.text());
+    }
+
+    // No arguments opens the chat window; --server [port] [threads] answers over HTTP without a GUI.
+    // A leading --rules <file or directory> loads the FAQ from there and reloads it when it changes.
+    public static void main(String[] args) {
+        FaqBot bot = new FaqBot(FaqBot.defaultRules());
+        if (args.length > 1 && args[0].equals("--rules")) {
+            Path rules = Paths.get(args[1]);
+            bot.reload(rules);
+            try {
+                new RulesWatcher(bot, rules);
+            } catch (IOException e) {
+                System.out.println("Cannot watch " + rules + " for changes: " + e.getMessage());
+            }
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors() * 2;
+            try {
+                new ChatServer(bot, port, threads).start();
+                System.out.println("Chatbot listening on http://localhost:" + port + "/chat");
+            } catch (IOException e) {
+                System.out.println("Cannot start server: " + e.getMessage());
+            }
+            return;
+        }
+        SwingUtilities.invokeLater(() -> new Chatbot(bot));
+    }
+}
+
@@ -0,0 +1,53 @@
+import java.util.Map;
+
+// Tuning check for the chatbot's similarity fallback on the built-in rules: misspelled questions must
+// reach their rule, and unrelated questions must still get the fallback answer.
+//
+//   javac Chatbot.java ChatbotSimilarityCheck.java
+//   java ChatbotSimilarityCheck
+//
+// Prints each mismatch and exits with status 1 if there were any.
+public class ChatbotSimilarityCheck {
+    public static void main(String[] args) {
+        Map<String, String> rules = FaqBot.defaultRules();
+        FaqBot bot = new FaqBot(rules);
+        String[][] similar = {
+            {"helo", "hello"},
+            {"whats ur name", "what is your name"},
+            {"what is ur name", "what is your name"},
+            {"how r you", "how are you"},
+            {"how are yu", "how are you"},
+        };
+        String[] unrelated = {
+            "what time is it",
+            "where do you live",
+            "tell me a joke",
+            "what is the weather today",
+            "can you book a flight",
+            "who won the game",
+            "my order is late",
+            "open the door",
+            "what is two plus two",
+            "i need a refund",
+        };
+
+        int failures = 0;
+        for (String[] pair : similar) {
+            String reply = bot.respond(pair[0]);
+            if (!reply.equals(rules.get(pair[1]))) {
+                System.out.println("FAIL: \"" + pair[0] + "\" should answer as \"" + pair[1] + "\" but got: " + reply);
+                failures++;
+            }
+        }
+        for (String message : unrelated) {
+            String reply = bot.respond(message);
+            if (!reply.equals(FaqBot.FALLBACK)) {
+                System.out.println("FAIL: \"" + message + "\" should fall back but got: " + reply);
+                failures++;
+            }
+        }
+        System.out.println(failures == 0 ? "All " + (similar.length + unrelated.length) + " messages answered as expected."
+                : failures + " mismatches.");
+        if (failures > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+// Guest lookups, cancels and category searches with the hotel's indexes against the full scans of
+// every reservation they replaced, on a hotel holding a million reservations.
+//
+//   javac HotelReservationSystem.java GuestIndexBenchmark.java
+//   java GuestIndexBenchmark [reservations] [lookups]
+public class GuestIndexBenchmark {
+    static final int ROOMS = 1_000;
+    static final int BOOKINGS_PER_GUEST = 5;
+
+    public static void main(String[] args) throws Exception {
+        int reservations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int scans = Math.max(1, lookups / 50); // each scan reads every reservation, so fewer of them
+
+        // Bookings print one line each; keep them out of the benchmark's output
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        List<HotelReservationSystem.Room> rooms = new ArrayList<>();
+        HotelReservationSystem.Category[] categories = HotelReservationSystem.Category.values();
+        for (int i = 1; i <= ROOMS; i++) rooms.add(new HotelReservationSystem.Room(i, categories[i % categories.length]));
+        HotelReservationSystem.Hotel hotel = new HotelReservationSystem.Hotel("bench",
+                Files.createTempDirectory("guest-index"), rooms, HotelReservationSystem.SyncPolicy.NONE,
+                new HotelReservationSystem.SimulatedPaymentGateway(0, 0));
+
+        // One-night stays, room after room and night after night; guests spread over all of them
+        LocalDate first = LocalDate.of(2030, 1, 1);
+        int guests = reservations / BOOKINGS_PER_GUEST;
+        long start = System.nanoTime();
+        for (int i = 0; i < reservations; i++) {
+            LocalDate night = first.plusDays(i / ROOMS);
+            hotel.bookRoom("Guest" + (i % guests), 1 + i % ROOMS, night, night.plusDays(1));
+        }
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+        System.setOut(console);
+        System.out.printf("%,d reservations for %,d guests in %,d rooms, loaded in %,d ms%n",
+                hotel.reservations.size(), guests, ROOMS, loadMillis);
+
+        Random random = new Random(1);
+        String[] names = new String[lookups];
+        for (int i = 0; i < lookups; i++) names[i] = "guest" + random.nextInt(guests); // other case than booked
+        LocalDate[] nights = new LocalDate[lookups];
+        int days = reservations / ROOMS;
+        for (int i = 0; i < lookups; i++) nights[i] = first.plusDays(random.nextInt(Math.max(1, days - 3)));
+
+        System.out.printf("%-28s %14s %14s %10s%n", "per operation", "scan (us)", "index (us)", "speedup");
+        long found = 0;
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1; // the first round warms up both paths
+
+            // A guest's bookings
+            start = System.nanoTime();
+            for (int i = 0; i < scans; i++) found += scanBookings(hotel, names[i]).size();
+            long scan = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (String name : names) found += hotel.findBookings(name).size();
+            long index = System.nanoTime() - start;
+            if (report) print(scans, lookups, "guest's bookings", scan, index);
+
+            // The booking a cancel removes: the guest's earliest stay in the room
+            start = System.nanoTime();
+            for (int i = 0; i < scans; i++) {
+                if (scanCancel(hotel, names[i], roomOf(names[i], guests)) != null) found++;
+            }
+            scan = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                if (indexCancel(hotel, names[i], roomOf(names[i], guests)) != null) found++;
+            }
+            index = System.nanoTime() - start;
+            if (report) print(scans, lookups, "booking to cancel", scan, index);
+
+            // Rooms of a category free for three nights
+            start = System.nanoTime();
+            for (int i = 0; i < scans; i++) {
+                found += scanFree(hotel, categories[0], nights[i], nights[i].plusDays(3)).cardinality();
+            }
+            scan = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (LocalDate night : nights) {
+                found += hotel.matchingRooms(categories[0], night, night.plusDays(3)).cardinality();
+            }
+            index = System.nanoTime() - start;
+            if (report) print(scans, lookups, "category search", scan, index);
+        }
+
+        // Whole cancels through the index, journal write included
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        start = System.nanoTime();
+        int cancelled = 0;
+        for (int i = 0; i < lookups; i++) {
+            String name = "Guest" + i;
+            if (hotel.cancelReservation(name, roomOf(name, guests))) cancelled++;
+        }
+        long cancels = System.nanoTime() - start;
+        System.setOut(console);
+        System.out.printf("%,d cancels through cancelReservation, journal write included: %.1f us each%n",
+                cancelled, cancels / 1e3 / lookups);
+        if (found == 0) System.out.println("No lookup found anything; the timings above measured nothing.");
+        hotel.close();
+    }
+
+    // The first room the guest booked; guest g took reservations g, g + guests, ... in rooms (i % ROOMS) + 1
+    static int roomOf(String name, int guests) {
+        return 1 + Integer.parseInt(name.substring(5)) % ROOMS;
+    }
+
+    static List<HotelReservationSystem.Reservation> scanBookings(HotelReservationSystem.Hotel hotel, String name) {
+        List<HotelReservationSystem.Reservation> found = new ArrayList<>();
+        for (HotelReservationSystem.Reservation res : hotel.reservations.values()) {
+            if (res.guestName.equalsIgnoreCase(name)) found.add(res);
+        }
+        return found;
+    }
+
+    static HotelReservationSystem.Reservation scanCancel(HotelReservationSystem.Hotel hotel, String name, int room) {
+        HotelReservationSystem.Reservation earliest = null;
+        for (HotelReservationSystem.Reservation res : hotel.reservations.values()) {
+            if (res.roomNumber == room && res.guestName.equalsIgnoreCase(name)
+                    && (earliest == null || res.checkIn.isBefore(earliest.checkIn))) {
+                earliest = res;
+            }
+        }
+        return earliest;
+    }
+
+    static HotelReservationSystem.Reservation indexCancel(HotelReservationSystem.Hotel hotel, String name, int room) {
+        HotelReservationSystem.Reservation earliest = null;
+        for (HotelReservationSystem.Reservation res : hotel.findBookings(name)) {
+            if (res.roomNumber == room && (earliest == null || res.checkIn.isBefore(earliest.checkIn))) earliest = res;
+        }
+        return earliest;
+    }
+
+    // Rooms of the category with no reservation overlapping [checkIn, checkOut), by room index
+    static BitSet scanFree(HotelReservationSystem.Hotel hotel, HotelReservationSystem.Category category,
+            LocalDate checkIn, LocalDate checkOut) {
+        BitSet free = new BitSet();
+        for (HotelReservationSystem.Room room : hotel.rooms) {
+            if (room.category == category) free.set(room.index);
+        }
+        for (HotelReservationSystem.Reservation res : hotel.reservations.values()) {
+            if (res.checkIn.isBefore(checkOut) && checkIn.isBefore(res.checkOut)) {
+                free.clear(hotel.findRoom(res.roomNumber).index);
+            }
+        }
+        return free;
+    }
+
+    static void print(int scans, int lookups, String what, long scanNanos, long indexNanos) {
+        double scan = scanNanos / 1e3 / scans, index = indexNanos / 1e3 / lookups;
+        System.out.printf("%-28s %14.1f %14.2f %9.0fx%n", what, scan, index, scan / index);
+    }
+}
@@ -1,240 +1,1132 @@
-import java.io.*;
-import java.util.*;
-
-public class HotelReservationSystem {
-
-    // Room categories
-    enum Category {
-        STANDARD, DELUXE, SUITE
-    }
-
-    // Room class
-    static class Room {
-        int roomNumber;
-        Category category;
-        boolean isBooked;
-
-        Room(int roomNumber, Category category) {
-            this.roomNumber = roomNumber;
-            this.category = category;
-            this.isBooked = false;
-        }
-
-        @Override
-        public String toString() {
-            return "Room " + roomNumber + " (" + category + ") - " + (isBooked ? "Booked" : "Available");
-        }
-    }
-
-    // Reservation class
-    static class Reservation implements Serializable {
-        String guestName;
-        int roomNumber;
-        Category category;
-
-        Reservation(String guestName, int roomNumber, Category category) {
-            this.guestName = guestName;
-            this.roomNumber = roomNumber;
-            this.category = category;
-        }
-
-        @Override
-        public String toString() {
-            return "Reservation: " + guestName + " in Room " + roomNumber + " (" + category + ")";
-        }
-    }
-
-    // Hotel class
-    static class Hotel {
-        List<Room> rooms = new ArrayList<>();
-        List<Reservation> reservations = new ArrayList<>();
-        final String dataFile = "reservations.dat";
-
-        Hotel() {
-            // Initialize rooms (example)
-            for (int i = 1; i <= 5; i++) rooms.add(new Room(i, Category.STANDARD));
-            for (int i = 6; i <= 8; i++) rooms.add(new Room(i, Category.DELUXE));
-            for (int i = 9; i <= 10; i++) rooms.add(new Room(i, Category.SUITE));
-            loadReservations();
-            updateRoomStatus();
-        }
-
-        void updateRoomStatus() {
-            // Mark booked rooms based on reservations
-            for (Room room : rooms) {
-                room.isBooked = false;
-                for (Reservation res : reservations) {
-                    if (res.roomNumber == room.roomNumber) {
-                        room.isBooked = true;
-                        break;
-                    }
-                }
-            }
-        }
-
-        void loadReservations() {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(dataFile))) {
-                reservations = (List<Reservation>) ois.readObject();
-            } catch (Exception e) {
-                reservations = new ArrayList<>();
-            }
-        }
-
-        void saveReservations() {
-            try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(dataFile))) {
-                oos.writeObject(reservations);
-            } catch (IOException e) {
-                System.out.println("Error saving reservations: " + e.getMessage());
-            }
-        }
-
-        void showRooms() {
-            System.out.println("Rooms:");
-            for (Room room : rooms) {
-                System.out.println(room);
-            }
-        }
-
-        void searchRooms(Category category) {
-            System.out.println("Available " + category + " rooms:");
-            boolean found = false;
-            for (Room room : rooms) {
-                if (room.category == category && !room.isBooked) {
-                    System.out.println(room);
-                    found = true;
-                }
-            }
-            if (!found) System.out.println("No available rooms found.");
-        }
-
-        boolean bookRoom(String guestName, int roomNumber) {
-            Room room = findRoom(roomNumber);
-            if (room == null) {
-                System.out.println("Room does not exist.");
-                return false;
-            }
-            if (room.isBooked) {
-                System.out.println("Room already booked.");
-                return false;
-            }
-            // Simulate payment
-            if (!simulatePayment()) {
-                System.out.println("Payment failed. Booking cancelled.");
-                return false;
-            }
-            // Book room
-            Reservation reservation = new Reservation(guestName, roomNumber, room.category);
-            reservations.add(reservation);
-            room.isBooked = true;
-            saveReservations();
-            System.out.println("Booking successful!");
-            System.out.println(reservation);
-            return true;
-        }
-
-        boolean cancelReservation(String guestName, int roomNumber) {
-            Iterator<Reservation> iterator = reservations.iterator();
-            while (iterator.hasNext()) {
-                Reservation res = iterator.next();
-                if (res.guestName.equalsIgnoreCase(guestName) && res.roomNumber == roomNumber) {
-                    iterator.remove();
-                    updateRoomStatus();
-                    saveReservations();
-                    System.out.println("Reservation cancelled.");
-                    return true;
-                }
-            }
-            System.out.println("Reservation not found.");
-            return false;
-        }
-
-        void viewBookings() {
-            if (reservations.isEmpty()) {
-                System.out.println("No bookings found.");
-                return;
-            }
-            System.out.println("All Bookings:");
-            for (Reservation res : reservations) {
-                System.out.println(res);
-            }
-        }
-
-        Room findRoom(int roomNumber) {
-            for (Room room : rooms) {
-                if (room.roomNumber == roomNumber) return room;
-            }
-            return null;
-        }
-
-        boolean simulatePayment() {
-            Scanner scanner = new Scanner(System.in);
-            System.out.print("Simulate payment (enter 'yes' to confirm): ");
-            String input = scanner.nextLine().trim().toLowerCase();
-            return input.equals("yes");
-        }
-    }
-
-    public static void main(String[] args) {
-        Scanner scanner = new Scanner(System.in);
-        Hotel hotel = new Hotel();
-
-        while (true) {
-            System.out.println("\n--- Hotel Reservation System ---");
-            System.out.println("1. Show all rooms");
-            System.out.println("2. Search rooms by category");
-            System.out.println("3. Book a room");
-            System.out.println("4. Cancel a reservation");
-            System.out.println("5. View all bookings");
-            System.out.println("6. Exit");
-            System.out.print("Enter choice: ");
-
-            String choice = scanner.nextLine();
-
-            switch (choice) {
-                case "1" -> hotel.showRooms();
-                case "2" -> {
-                    System.out.print("Enter category (STANDARD, DELUXE, SUITE): ");
-                    String cat = scanner.nextLine().toUpperCase();
-                    try {
-                        Category category = Category.valueOf(cat);
-                        hotel.searchRooms(category);
-                    } catch (IllegalArgumentException e) {
-                        System.out.println("Invalid category.");
-                    }
-                }
-                case "3" -> {
-                    System.out.print("Enter your name: ");
-                    String name = scanner.nextLine();
-                    System.out.print("Enter room number to book: ");
-                    int roomNum;
-                    try {
-                        roomNum = Integer.parseInt(scanner.nextLine());
-                    } catch (NumberFormatException e) {
-                        System.out.println("Invalid room number.");
-                        break;
-                    }
-                    hotel.bookRoom(name, roomNum);
-                }
-                case "4" -> {
-                    System.out.print("Enter your name: ");
-                    String name = scanner.nextLine();
-                    System.out.print("Enter room number to cancel: ");
-                    int roomNum;
-                    try {
-                        roomNum = Integer.parseInt(scanner.nextLine());
-                    } catch (NumberFormatException e) {
-                        System.out.println("Invalid room number.");
-                        break;
-                    }
-                    hotel.cancelReservation(name, roomNum);
-                }
-                case "5" -> hotel.viewBookings();
-                case "6" -> {
-                    System.out.println("Exiting...");
-                    return;
-                }
-                default -> System.out.println("Invalid choice.");
-            }
-        }
-    }
-}
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+public class HotelReservationSystem {
+
+    // Room categories
+    enum Category {
+        STANDARD, DELUXE, SUITE
+    }
+
+    // Room class
+    static class Room {
+        int roomNumber;
+        Category category;
+        int index; // position in the hotel's room list, used as the room's bit in the calendar
+        // Stays keyed by check-in date; stays of one room never overlap. Guarded by the room's monitor.
+        TreeMap<LocalDate, Reservation> stays = new TreeMap<>();
+
+        Room(int roomNumber, Category category) {
+            this.roomNumber = roomNumber;
+            this.category = category;
+        }
+
+        synchronized boolean isFree(LocalDate from, LocalDate to) {
+            // Only the last stay starting before 'to' can overlap, since stays are disjoint
+            Map.Entry<LocalDate, Reservation> last = stays.lowerEntry(to);
+            return last == null || !last.getValue().checkOut.isAfter(from);
+        }
+
+        boolean isBookedOn(LocalDate date) {
+            return !isFree(date, date.plusDays(1));
+        }
+
+        @Override
+        public String toString() {
+            return "Room " + roomNumber + " (" + category + ") - " + (isBookedOn(LocalDate.now()) ? "Booked" : "Available");
+        }
+    }
+
+    // Reservation class
+    // Serializable only so the migrator can read the legacy reservations.dat file
+    static class Reservation implements Serializable {
+        private static final long serialVersionUID = 1780339504056145780L; // matches the original field layout
+
+        long id;
+        String guestName;
+        int roomNumber;
+        Category category;
+        LocalDate checkIn;
+        LocalDate checkOut; // exclusive: the morning the guest leaves
+        transient boolean held; // room is held awaiting payment; guarded by the room's monitor
+
+        Reservation(long id, String guestName, int roomNumber, Category category, LocalDate checkIn, LocalDate checkOut) {
+            this.id = id;
+            this.guestName = guestName;
+            this.roomNumber = roomNumber;
+            this.category = category;
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+        }
+
+        @Override
+        public String toString() {
+            return "Reservation: " + guestName + " in Room " + roomNumber + " (" + category + ") from "
+                    + checkIn + " to " + checkOut;
+        }
+    }
+
+    // Availability calendar: one bitset per night, bit i set when room i is occupied.
+    // Bits are flipped with CAS so rooms sharing a word can be claimed concurrently.
+    static class AvailabilityCalendar {
+        final ConcurrentMap<Long, AtomicLongArray> occupied = new ConcurrentHashMap<>();
+        final EnumMap<Category, BitSet> roomsByCategory = new EnumMap<>(Category.class);
+        final BitSet allRooms = new BitSet();
+        int roomCount;
+
+        // Rooms must all be added before the first stay is recorded
+        void addRoom(Room room) {
+            roomsByCategory.computeIfAbsent(room.category, c -> new BitSet()).set(room.index);
+            allRooms.set(room.index);
+            roomCount = Math.max(roomCount, room.index + 1);
+        }
+
+        void occupy(Room room, LocalDate from, LocalDate to) {
+            long bit = 1L << room.index;
+            for (long day = from.toEpochDay(); day < to.toEpochDay(); day++) {
+                occupied.computeIfAbsent(day, d -> new AtomicLongArray((roomCount + 63) >> 6))
+                        .getAndAccumulate(room.index >> 6, bit, (word, b) -> word | b);
+            }
+        }
+
+        // Empty nights are kept rather than removed, which would race with a concurrent occupy
+        void release(Room room, LocalDate from, LocalDate to) {
+            long mask = ~(1L << room.index);
+            for (long day = from.toEpochDay(); day < to.toEpochDay(); day++) {
+                AtomicLongArray nights = occupied.get(day);
+                if (nights != null) nights.getAndAccumulate(room.index >> 6, mask, (word, m) -> word & m);
+            }
+        }
+
+        // Rooms of the category (any category if null), as room indexes; do not modify
+        BitSet rooms(Category category) {
+            if (category == null) return allRooms;
+            return roomsByCategory.getOrDefault(category, new BitSet());
+        }
+
+        // Rooms of the category (any category if null) free on every night in [from, to), as room indexes
+        BitSet freeRooms(Category category, LocalDate from, LocalDate to) {
+            BitSet rooms = rooms(category);
+            long[] free = rooms.toLongArray();
+            for (long day = from.toEpochDay(); day < to.toEpochDay(); day++) {
+                AtomicLongArray nights = occupied.get(day);
+                if (nights == null) continue;
+                for (int w = 0; w < free.length; w++) {
+                    if (free[w] != 0) free[w] &= ~nights.get(w); // skip words with no rooms of this category
+                }
+            }
+            return BitSet.valueOf(free);
+        }
+    }
+
+    // Charges guests for bookings; implementations complete the futures on their own threads
+    interface PaymentGateway {
+        CompletableFuture<Boolean> charge(Reservation reservation);
+
+        CompletableFuture<Void> refund(Reservation reservation);
+    }
+
+    // Local stand-in for a payment provider with a fixed latency and a random decline rate
+    static class SimulatedPaymentGateway implements PaymentGateway {
+        final long latencyMillis;
+        final double declineRate;
+
+        SimulatedPaymentGateway(long latencyMillis, double declineRate) {
+            this.latencyMillis = latencyMillis;
+            this.declineRate = declineRate;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> charge(Reservation reservation) {
+            if (latencyMillis == 0) {
+                return CompletableFuture.completedFuture(ThreadLocalRandom.current().nextDouble() >= declineRate);
+            }
+            return CompletableFuture.supplyAsync(() -> ThreadLocalRandom.current().nextDouble() >= declineRate,
+                    CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public CompletableFuture<Void> refund(Reservation reservation) {
+            if (latencyMillis == 0) return CompletableFuture.completedFuture(null);
+            return CompletableFuture.runAsync(() -> { },
+                    CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    // Asks the user at the console to confirm payment, as the menu-driven program always has
+    static class ConsolePaymentGateway implements PaymentGateway {
+        final Scanner scanner;
+
+        ConsolePaymentGateway(Scanner scanner) {
+            this.scanner = scanner;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> charge(Reservation reservation) {
+            System.out.print("Simulate payment (enter 'yes' to confirm): ");
+            String input = scanner.nextLine().trim().toLowerCase();
+            return CompletableFuture.completedFuture(input.equals("yes"));
+        }
+
+        @Override
+        public CompletableFuture<Void> refund(Reservation reservation) {
+            System.out.println("Payment refunded.");
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    // One page of a listing plus the cursor that fetches the next page (-1 when there is none)
+    static class Page<T> {
+        final List<T> items;
+        final long nextCursor;
+
+        Page(List<T> items, long nextCursor) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    // When the reservation journal forces its writes to disk
+    enum SyncPolicy {
+        EVERY_WRITE, // force each record before the call returns
+        GROUP,       // group commit: callers wait in sync for a force that may cover other callers' records too
+        NONE         // leave flushing to the operating system
+    }
+
+    // Append-only journal of booking and cancel events.
+    // Record layout: int payload length, int CRC32 of payload, payload.
+    // Under GROUP, append only buffers the record and returns its sequence number; sync(seq) then waits
+    // until a force covers it. The first waiter forces everything appended so far while later ones queue
+    // up behind it, so one fsync acknowledges every record that arrived during the previous one. The force
+    // runs outside the journal's monitor, so appends never wait on the disk.
+    static class ReservationJournal implements Closeable {
+        static final byte BOOK = 1;
+        static final byte CANCEL = 2;
+
+        final FileChannel channel;
+        final SyncPolicy policy;
+        final ByteBuffer pending = ByteBuffer.allocate(256 * 1024);
+        final CRC32 crc = new CRC32();
+        int pendingRecords;
+        long appended;         // sequence number of the last record appended
+        volatile long records; // records written since the last snapshot
+        final Object syncLock = new Object();
+        long durable;          // guarded by syncLock: every record up to this sequence is on disk
+        boolean forcing;       // guarded by syncLock: a caller is forcing on behalf of everyone waiting
+
+        ReservationJournal(Path path, SyncPolicy policy) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.policy = policy;
+        }
+
+        // Applies every intact record to the map, cuts off a torn tail and positions for appending
+        synchronized void replay(Map<Long, Reservation> reservations) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate((int) channel.size());
+            channel.read(buf, 0);
+            buf.flip();
+            int valid = 0;
+            while (buf.remaining() >= 8) {
+                int length = buf.getInt();
+                int checksum = buf.getInt();
+                if (length <= 0 || length > buf.remaining()) break;
+                ByteBuffer payload = buf.slice().limit(length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) break;
+                byte type = payload.get();
+                long id = payload.getLong();
+                if (type == BOOK) {
+                    int roomNumber = payload.getInt();
+                    Category category = Category.values()[payload.get()];
+                    LocalDate checkIn = LocalDate.ofEpochDay(payload.getInt());
+                    LocalDate checkOut = LocalDate.ofEpochDay(payload.getInt());
+                    byte[] name = new byte[payload.getShort() & 0xFFFF];
+                    payload.get(name);
+                    reservations.put(id, new Reservation(id, new String(name, StandardCharsets.UTF_8), roomNumber,
+                            category, checkIn, checkOut));
+                } else {
+                    reservations.remove(id);
+                }
+                buf.position(buf.position() + length);
+                valid = buf.position();
+                records++;
+            }
+            channel.truncate(valid);
+            channel.position(valid);
+        }
+
+        // Returns the record's sequence number, for sync
+        synchronized long append(byte type, Reservation res) throws IOException {
+            byte[] name = type == BOOK ? res.guestName.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            if (name.length > 0xFFFF) throw new IOException("Guest name too long");
+            int length = type == BOOK ? 1 + 8 + 4 + 1 + 4 + 4 + 2 + name.length : 1 + 8;
+            if (pending.remaining() < 8 + length) flushPending();
+            int start = pending.position();
+            pending.putInt(length).putInt(0).put(type).putLong(res.id);
+            if (type == BOOK) {
+                pending.putInt(res.roomNumber)
+                        .put((byte) res.category.ordinal())
+                        .putInt((int) res.checkIn.toEpochDay())
+                        .putInt((int) res.checkOut.toEpochDay())
+                        .putShort((short) name.length)
+                        .put(name);
+            }
+            crc.reset();
+            crc.update(pending.duplicate().position(start + 8).limit(pending.position()));
+            pending.putInt(start + 4, (int) crc.getValue());
+            pendingRecords++;
+            records++;
+            appended++;
+            if (policy != SyncPolicy.GROUP) flush();
+            return appended;
+        }
+
+        // Returns once the record with this sequence number is on disk; a no-op unless the policy is GROUP
+        void sync(long seq) throws IOException {
+            if (policy != SyncPolicy.GROUP) return;
+            synchronized (syncLock) {
+                while (durable < seq && forcing) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted waiting for the journal");
+                    }
+                }
+                if (durable >= seq) return;
+                forcing = true;
+            }
+            long covered;
+            try {
+                covered = writePending();
+                channel.force(false);
+            } catch (IOException | RuntimeException e) {
+                synchronized (syncLock) {
+                    forcing = false;
+                    syncLock.notifyAll(); // the others retry the force for themselves
+                }
+                throw e;
+            }
+            synchronized (syncLock) {
+                forcing = false;
+                durable = Math.max(durable, covered);
+                syncLock.notifyAll();
+            }
+        }
+
+        // Writes the buffered records to the file without forcing; returns the last sequence written
+        synchronized long writePending() throws IOException {
+            if (pendingRecords > 0) flushPending();
+            return appended;
+        }
+
+        void markDurable(long seq) {
+            synchronized (syncLock) {
+                durable = Math.max(durable, seq);
+                syncLock.notifyAll();
+            }
+        }
+
+        synchronized void flush() throws IOException {
+            if (pendingRecords > 0) {
+                flushPending();
+                if (policy != SyncPolicy.NONE) channel.force(false);
+            }
+            markDurable(appended);
+        }
+
+        private void flushPending() throws IOException {
+            pending.flip();
+            while (pending.hasRemaining()) channel.write(pending);
+            pending.clear();
+            pendingRecords = 0;
+        }
+
+        // Drops all records; called once a snapshot covering them is safely on disk
+        synchronized void reset() throws IOException {
+            flush();
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+            records = 0;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    // Versioned binary snapshot of all live reservations.
+    // Layout: header (int magic, short version, short unused, int record count, int string count),
+    // fixed-width records, then the string table of distinct guest names (unsigned short length, UTF-8 bytes).
+    static class ReservationSnapshot {
+        static final int MAGIC = 0x48525356; // "HRSV"
+        static final short VERSION = 1;
+        static final int HEADER_SIZE = 16;
+        // long id, int guest name index, int room number, int check-in day, int check-out day, byte category
+        static final int RECORD_SIZE = 25;
+
+        static void write(Path path, Collection<Reservation> reservations) throws IOException {
+            Map<String, Integer> names = new LinkedHashMap<>();
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                for (Reservation res : reservations) names.putIfAbsent(res.guestName, names.size());
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeShort(0);
+                out.writeInt(reservations.size());
+                out.writeInt(names.size());
+                for (Reservation res : reservations) {
+                    out.writeLong(res.id);
+                    out.writeInt(names.get(res.guestName));
+                    out.writeInt(res.roomNumber);
+                    out.writeInt((int) res.checkIn.toEpochDay());
+                    out.writeInt((int) res.checkOut.toEpochDay());
+                    out.writeByte(res.category.ordinal());
+                }
+                for (String name : names.keySet()) {
+                    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                    if (bytes.length > 0xFFFF) throw new IOException("Guest name too long");
+                    out.writeShort(bytes.length);
+                    out.write(bytes);
+                }
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        static void read(Path path, Map<Long, Reservation> reservations) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buf.remaining() < HEADER_SIZE || buf.getInt() != MAGIC) {
+                    throw new IOException("Not a reservation snapshot: " + path);
+                }
+                short version = buf.getShort();
+                if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+                buf.getShort();
+                int count = buf.getInt();
+                String[] names = new String[buf.getInt()];
+
+                // Decode each distinct name once, then resolve records against the table
+                buf.position(HEADER_SIZE + count * RECORD_SIZE);
+                byte[] scratch = new byte[256];
+                for (int i = 0; i < names.length; i++) {
+                    int length = buf.getShort() & 0xFFFF;
+                    if (length > scratch.length) scratch = new byte[length];
+                    buf.get(scratch, 0, length);
+                    names[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                }
+                Category[] categories = Category.values();
+                for (int i = 0, at = HEADER_SIZE; i < count; i++, at += RECORD_SIZE) {
+                    long id = buf.getLong(at);
+                    reservations.put(id, new Reservation(id, names[buf.getInt(at + 8)], buf.getInt(at + 12),
+                            categories[buf.get(at + 24)], LocalDate.ofEpochDay(buf.getInt(at + 16)),
+                            LocalDate.ofEpochDay(buf.getInt(at + 20))));
+                }
+            }
+        }
+
+        // One-time conversion of the old Java-serialized reservations.dat into a snapshot.
+        // Legacy reservations had no dates or ids; they become one-night stays starting today.
+        static void migrate(Path legacy, Path snapshot) throws IOException {
+            List<Reservation> old;
+            try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(legacy)))) {
+                old = (List<Reservation>) ois.readObject();
+            } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("Unreadable legacy reservations file", e);
+            }
+            LocalDate today = LocalDate.now();
+            long nextId = 1;
+            for (Reservation res : old) nextId = Math.max(nextId, res.id + 1);
+            for (Reservation res : old) {
+                if (res.id == 0) res.id = nextId++;
+                if (res.checkIn == null) res.checkIn = today;
+                if (res.checkOut == null) res.checkOut = res.checkIn.plusDays(1);
+            }
+            write(snapshot, old);
+            Files.move(legacy, legacy.resolveSibling(legacy.getFileName() + ".migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Migrated " + old.size() + " reservations from " + legacy);
+        }
+    }
+
+    // Hotel class. Safe for concurrent use: a room is claimed under its own monitor, so bookings
+    // for different rooms never contend, and the same nights can never be sold twice.
+    static class Hotel {
+        // The calendar keeps one entry per night and the files store dates as int epoch days,
+        // so stays are bounded in length and in date
+        static final int MAX_NIGHTS = 365;
+
+        final String propertyId;
+        List<Room> rooms = new ArrayList<>();
+        Map<Integer, Room> roomsByNumber = new HashMap<>();
+        ConcurrentSkipListMap<Long, Reservation> reservations = new ConcurrentSkipListMap<>();
+        AvailabilityCalendar calendar = new AvailabilityCalendar();
+        // Confirmed reservations by case-folded guest name
+        ConcurrentMap<String, Set<Reservation>> reservationsByGuest = new ConcurrentHashMap<>();
+        AtomicLong nextReservationId = new AtomicLong(1);
+        // Held shared while a change is applied and journaled, exclusively while a snapshot replaces the journal
+        final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+        final Path snapshotFile;
+        final Path legacyFile;
+        final Path journalFile;
+        final int snapshotEvery = 10_000; // minimum journal records between compacted snapshots
+        // Journal length that triggers the next snapshot: the live set size at the last one, so compaction
+        // cost stays amortized O(1) per event. Kept as a field since sizing the skip list is O(n).
+        volatile long snapshotThreshold = snapshotEvery;
+        ReservationJournal journal;
+        final PaymentGateway paymentGateway;
+        long holdMillis = 5 * 60_000; // how long a room stays held while payment is pending
+        final ScheduledExecutorService holdTimer;
+        final boolean ownsHoldTimer; // shut down on close; a shared timer belongs to the hotel group
+
+        Hotel() {
+            this(SyncPolicy.EVERY_WRITE, new SimulatedPaymentGateway(0, 0));
+        }
+
+        Hotel(SyncPolicy syncPolicy, PaymentGateway paymentGateway) {
+            this("main", Paths.get("."), exampleRooms(), syncPolicy, paymentGateway);
+        }
+
+        // A property whose reservation files live in dataDir, which must not be shared with another Hotel
+        Hotel(String propertyId, Path dataDir, List<Room> initialRooms, SyncPolicy syncPolicy,
+              PaymentGateway paymentGateway) {
+            this(propertyId, dataDir, initialRooms, syncPolicy, paymentGateway, null);
+        }
+
+        // As above, expiring holds on the given shared timer, or on a timer of its own if null
+        Hotel(String propertyId, Path dataDir, List<Room> initialRooms, SyncPolicy syncPolicy,
+              PaymentGateway paymentGateway, ScheduledExecutorService holdTimer) {
+            this.propertyId = propertyId;
+            this.ownsHoldTimer = holdTimer == null;
+            this.holdTimer = holdTimer != null ? holdTimer : newHoldTimer();
+            this.paymentGateway = paymentGateway;
+            this.snapshotFile = dataDir.resolve("reservations.snap");
+            this.legacyFile = dataDir.resolve("reservations.dat");
+            this.journalFile = dataDir.resolve("reservations.journal");
+            for (Room room : initialRooms) addRoom(room);
+            try {
+                Files.createDirectories(dataDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create data directory " + dataDir, e);
+            }
+            loadReservations(syncPolicy);
+            for (Reservation res : reservations.values()) {
+                indexReservation(res);
+                indexGuest(res);
+            }
+            if (!reservations.isEmpty()) nextReservationId.set(reservations.lastKey() + 1);
+            snapshotThreshold = Math.max(snapshotEvery, reservations.size());
+        }
+
+        static ScheduledExecutorService newHoldTimer() {
+            return Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "hold-expiry");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        // Initialize rooms (example)
+        static List<Room> exampleRooms() {
+            List<Room> rooms = new ArrayList<>();
+            for (int i = 1; i <= 5; i++) rooms.add(new Room(i, Category.STANDARD));
+            for (int i = 6; i <= 8; i++) rooms.add(new Room(i, Category.DELUXE));
+            for (int i = 9; i <= 10; i++) rooms.add(new Room(i, Category.SUITE));
+            return rooms;
+        }
+
+        void addRoom(Room room) {
+            room.index = rooms.size();
+            rooms.add(room);
+            roomsByNumber.put(room.roomNumber, room);
+            calendar.addRoom(room);
+        }
+
+        void indexReservation(Reservation res) {
+            Room room = findRoom(res.roomNumber);
+            if (room == null) return;
+            room.stays.put(res.checkIn, res);
+            calendar.occupy(room, res.checkIn, res.checkOut);
+        }
+
+        void unindexReservation(Reservation res) {
+            Room room = findRoom(res.roomNumber);
+            if (room == null) return;
+            room.stays.remove(res.checkIn);
+            calendar.release(room, res.checkIn, res.checkOut);
+        }
+
+        static String guestKey(String guestName) {
+            return guestName.toLowerCase(Locale.ROOT);
+        }
+
+        void indexGuest(Reservation res) {
+            reservationsByGuest.compute(guestKey(res.guestName), (k, booked) -> {
+                if (booked == null) booked = ConcurrentHashMap.newKeySet();
+                booked.add(res);
+                return booked;
+            });
+        }
+
+        void unindexGuest(Reservation res) {
+            reservationsByGuest.computeIfPresent(guestKey(res.guestName), (k, booked) -> {
+                booked.remove(res);
+                return booked.isEmpty() ? null : booked;
+            });
+        }
+
+        // Loads the last snapshot, then replays the journal written since
+        void loadReservations(SyncPolicy syncPolicy) {
+            try {
+                if (!Files.exists(snapshotFile) && Files.exists(legacyFile)) {
+                    ReservationSnapshot.migrate(legacyFile, snapshotFile);
+                }
+                if (Files.exists(snapshotFile)) ReservationSnapshot.read(snapshotFile, reservations);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load reservations", e);
+            }
+            try {
+                journal = new ReservationJournal(journalFile, syncPolicy);
+                journal.replay(reservations);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open reservation journal", e);
+            }
+        }
+
+        // Journals a booking or cancel and then applies it to the store, as one step with respect to
+        // snapshots. If the journal write fails nothing changes and the caller must fail the operation.
+        // Callers hold the room's monitor, so events for one room reach the journal in order, and must
+        // journal.sync the returned sequence number before reporting success.
+        long saveReservation(byte event, Reservation res) throws IOException {
+            snapshotLock.readLock().lock();
+            try {
+                long seq = journal.append(event, res);
+                applyReservation(event, res);
+                return seq;
+            } finally {
+                snapshotLock.readLock().unlock();
+            }
+        }
+
+        void applyReservation(byte event, Reservation res) {
+            if (event == ReservationJournal.BOOK) {
+                reservations.put(res.id, res);
+                indexGuest(res);
+            } else {
+                reservations.remove(res.id);
+                unindexGuest(res);
+            }
+        }
+
+        // Undoes a saved event whose record could not be synced. The opposite record is journaled if the
+        // disk still takes it, so a replay cannot resurrect the event; the store is restored either way.
+        void revertReservation(byte event, Reservation res) {
+            byte opposite = event == ReservationJournal.BOOK ? ReservationJournal.CANCEL : ReservationJournal.BOOK;
+            snapshotLock.readLock().lock();
+            try {
+                journal.append(opposite, res);
+            } catch (IOException e) {
+                System.out.println("Error saving reservations: " + e.getMessage());
+            } finally {
+                applyReservation(opposite, res);
+                snapshotLock.readLock().unlock();
+            }
+        }
+
+        boolean snapshotDue() {
+            return journal.records >= snapshotThreshold;
+        }
+
+        void compactIfNeeded() {
+            if (!snapshotDue()) return;
+            snapshotLock.writeLock().lock();
+            try {
+                if (snapshotDue()) saveSnapshot();
+            } catch (IOException e) {
+                System.out.println("Error saving reservations: " + e.getMessage());
+            } finally {
+                snapshotLock.writeLock().unlock();
+            }
+        }
+
+        // Writes all live reservations to a new snapshot, swaps it in and empties the journal
+        void saveSnapshot() throws IOException {
+            ReservationSnapshot.write(snapshotFile, reservations.values());
+            journal.reset();
+            snapshotThreshold = Math.max(snapshotEvery, reservations.size());
+        }
+
+        void close() {
+            if (ownsHoldTimer) holdTimer.shutdownNow();
+            snapshotLock.writeLock().lock();
+            try {
+                if (journal.records > 0) saveSnapshot();
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("Error saving reservations: " + e.getMessage());
+            } finally {
+                snapshotLock.writeLock().unlock();
+            }
+        }
+
+        // Why [checkIn, checkOut) cannot be booked or searched, or null if it can
+        static String invalidStay(LocalDate checkIn, LocalDate checkOut) {
+            if (!checkOut.isAfter(checkIn)) return "Check-out must be after check-in.";
+            if (checkIn.toEpochDay() < Integer.MIN_VALUE || checkOut.toEpochDay() > Integer.MAX_VALUE) {
+                return "Dates must be between " + LocalDate.ofEpochDay(Integer.MIN_VALUE) + " and "
+                        + LocalDate.ofEpochDay(Integer.MAX_VALUE) + ".";
+            }
+            if (checkOut.toEpochDay() - checkIn.toEpochDay() > MAX_NIGHTS) {
+                return "Stays are limited to " + MAX_NIGHTS + " nights.";
+            }
+            return null;
+        }
+
+        // Rooms as room indexes, optionally restricted to a category and to rooms free in [checkIn, checkOut)
+        BitSet matchingRooms(Category category, LocalDate checkIn, LocalDate checkOut) {
+            if (checkIn == null) return calendar.rooms(category);
+            String invalid = invalidStay(checkIn, checkOut);
+            if (invalid != null) throw new IllegalArgumentException(invalid);
+            return calendar.freeRooms(category, checkIn, checkOut);
+        }
+
+        // Lazily streams rooms in room order; null arguments mean no filter
+        Stream<Room> roomStream(Category category, LocalDate checkIn, LocalDate checkOut) {
+            return matchingRooms(category, checkIn, checkOut).stream().mapToObj(rooms::get);
+        }
+
+        // Up to 'limit' rooms after the cursor; start with cursor -1. The limit must be at least 1.
+        Page<Room> roomPage(Category category, LocalDate checkIn, LocalDate checkOut, long cursor, int limit) {
+            if (limit < 1) throw new IllegalArgumentException("Page limit must be at least 1: " + limit);
+            BitSet matching = matchingRooms(category, checkIn, checkOut);
+            List<Room> items = new ArrayList<>(limit);
+            int i = matching.nextSetBit((int) cursor + 1);
+            for (; i >= 0 && items.size() < limit; i = matching.nextSetBit(i + 1)) {
+                items.add(rooms.get(i));
+            }
+            return new Page<>(items, i >= 0 ? items.get(items.size() - 1).index : -1);
+        }
+
+        // Lazily streams confirmed bookings in booking order, optionally only the given guest's
+        Stream<Reservation> bookingStream(String guestName) {
+            if (guestName == null) return reservations.values().stream();
+            return reservationsByGuest.getOrDefault(guestKey(guestName), Set.of()).stream()
+                    .sorted(Comparator.comparingLong(res -> res.id));
+        }
+
+        // Up to 'limit' bookings with ids after the cursor; start with cursor 0. The limit must be at least 1.
+        Page<Reservation> bookingPage(String guestName, long cursor, int limit) {
+            if (limit < 1) throw new IllegalArgumentException("Page limit must be at least 1: " + limit);
+            Stream<Reservation> source = guestName == null ? reservations.tailMap(cursor, false).values().stream()
+                    : bookingStream(guestName).filter(res -> res.id > cursor);
+            List<Reservation> items = new ArrayList<>(limit + 1);
+            source.limit(limit + 1L).forEach(items::add);
+            if (items.size() <= limit) return new Page<>(items, -1);
+            items.remove(limit);
+            return new Page<>(items, items.get(limit - 1).id);
+        }
+
+        // Writes a listing through one buffered writer instead of a println per row
+        static void printRows(String header, String emptyMessage, Stream<?> rows) {
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+            Iterator<?> it = rows.iterator();
+            if (!it.hasNext()) {
+                out.println(emptyMessage);
+            } else {
+                out.println(header);
+                while (it.hasNext()) out.println(it.next());
+            }
+            out.flush();
+        }
+
+        void showRooms() {
+            printRows("Rooms:", "No rooms found.", roomStream(null, null, null));
+        }
+
+        void searchRooms(Category category, LocalDate checkIn, LocalDate checkOut) {
+            String invalid = invalidStay(checkIn, checkOut);
+            if (invalid != null) {
+                System.out.println(invalid);
+                return;
+            }
+            printRows("Available " + category + " rooms from " + checkIn + " to " + checkOut + ":",
+                    "No available rooms found.", roomStream(category, checkIn, checkOut));
+        }
+
+        boolean bookRoom(String guestName, int roomNumber, LocalDate checkIn, LocalDate checkOut) {
+            return bookRoomAsync(guestName, roomNumber, checkIn, checkOut).join() != null;
+        }
+
+        // Holds the room, charges the guest without blocking the caller and confirms once paid.
+        // Completes with the reservation, or null if the room is taken, payment fails or the hold expires first.
+        CompletableFuture<Reservation> bookRoomAsync(String guestName, int roomNumber, LocalDate checkIn,
+                                                     LocalDate checkOut) {
+            Room room = findRoom(roomNumber);
+            if (room == null) {
+                System.out.println("Room does not exist.");
+                return CompletableFuture.completedFuture(null);
+            }
+            String invalid = invalidStay(checkIn, checkOut);
+            if (invalid != null) {
+                System.out.println(invalid);
+                return CompletableFuture.completedFuture(null);
+            }
+            // Hold the room so nobody else can take those nights while payment is pending
+            Reservation hold;
+            synchronized (room) {
+                if (!room.isFree(checkIn, checkOut)) {
+                    System.out.println("Room already booked for those dates.");
+                    return CompletableFuture.completedFuture(null);
+                }
+                hold = new Reservation(nextReservationId.getAndIncrement(), guestName, roomNumber, room.category,
+                        checkIn, checkOut);
+                hold.held = true;
+                indexReservation(hold);
+            }
+            ScheduledFuture<?> expiry = holdTimer.schedule(() -> {
+                if (releaseHold(room, hold)) System.out.println("Hold on Room " + roomNumber + " expired.");
+            }, holdMillis, TimeUnit.MILLISECONDS);
+
+            CompletableFuture<Boolean> payment;
+            try {
+                payment = paymentGateway.charge(hold);
+            } catch (RuntimeException e) {
+                payment = CompletableFuture.failedFuture(e);
+            }
+            return payment.exceptionally(e -> false).thenApply(paid -> {
+                expiry.cancel(false);
+                if (!paid) {
+                    releaseHold(room, hold);
+                    System.out.println("Payment failed. Booking cancelled.");
+                    return null;
+                }
+                return confirmHold(room, hold);
+            });
+        }
+
+        Reservation confirmHold(Room room, Reservation hold) {
+            synchronized (room) {
+                if (!hold.held) {
+                    System.out.println("Payment arrived after the hold expired. Booking cancelled.");
+                    paymentGateway.refund(hold);
+                    return null;
+                }
+                // The room stays locked until the booking is on disk; other rooms share the same force
+                long seq = 0;
+                try {
+                    seq = saveReservation(ReservationJournal.BOOK, hold);
+                    journal.sync(seq);
+                } catch (IOException e) {
+                    if (seq > 0) revertReservation(ReservationJournal.BOOK, hold);
+                    hold.held = false;
+                    unindexReservation(hold);
+                    System.out.println("Error saving reservations: " + e.getMessage() + ". Booking cancelled.");
+                    paymentGateway.refund(hold);
+                    return null;
+                }
+                hold.held = false;
+            }
+            compactIfNeeded();
+            System.out.println("Booking successful!");
+            System.out.println(hold);
+            return hold;
+        }
+
+        // Returns the held nights to the calendar; false if the hold was already confirmed or released
+        boolean releaseHold(Room room, Reservation hold) {
+            synchronized (room) {
+                if (!hold.held) return false;
+                hold.held = false;
+                unindexReservation(hold);
+                return true;
+            }
+        }
+
+        boolean cancelReservation(String guestName, int roomNumber) {
+            Room room = findRoom(roomNumber);
+            Reservation cancelled = null;
+            if (room != null) {
+                synchronized (room) {
+                    // The guest's bookings in this room cannot change while we hold its monitor
+                    for (Reservation res : reservationsByGuest.getOrDefault(guestKey(guestName), Set.of())) {
+                        if (res.roomNumber == roomNumber && (cancelled == null || res.checkIn.isBefore(cancelled.checkIn))) {
+                            cancelled = res;
+                        }
+                    }
+                    if (cancelled != null) {
+                        long seq = 0;
+                        try {
+                            seq = saveReservation(ReservationJournal.CANCEL, cancelled);
+                            journal.sync(seq);
+                        } catch (IOException e) {
+                            if (seq > 0) revertReservation(ReservationJournal.CANCEL, cancelled);
+                            System.out.println("Error saving reservations: " + e.getMessage() + ". Reservation kept.");
+                            return false;
+                        }
+                        unindexReservation(cancelled);
+                    }
+                }
+            }
+            if (cancelled == null) {
+                System.out.println("Reservation not found.");
+                return false;
+            }
+            compactIfNeeded();
+            System.out.println("Reservation cancelled.");
+            return true;
+        }
+
+        void viewBookings() {
+            printRows("All Bookings:", "No bookings found.", bookingStream(null));
+        }
+
+        List<Reservation> findBookings(String guestName) {
+            List<Reservation> booked = new ArrayList<>(reservationsByGuest.getOrDefault(guestKey(guestName), Set.of()));
+            booked.sort(Comparator.comparing((Reservation res) -> res.checkIn).thenComparingInt(res -> res.roomNumber));
+            return booked;
+        }
+
+        void viewBookings(String guestName) {
+            printRows("Bookings for " + guestName + ":", "No bookings found.", findBookings(guestName).stream());
+        }
+
+        Room findRoom(int roomNumber) {
+            return roomsByNumber.get(roomNumber);
+        }
+    }
+
+    // Hotel group: rooms and reservations sharded by property id. Each property is its own Hotel with
+    // its own files, journal and locks, so operations on one property never contend with another.
+    // All properties expire holds on one shared timer thread.
+    static class HotelGroup {
+        final Path baseDir;
+        final SyncPolicy syncPolicy;
+        final PaymentGateway paymentGateway;
+        final Map<String, Hotel> properties = new ConcurrentHashMap<>();
+        final ForkJoinPool searchPool = new ForkJoinPool();
+        final ScheduledExecutorService holdTimer = Hotel.newHoldTimer();
+
+        HotelGroup(Path baseDir, SyncPolicy syncPolicy, PaymentGateway paymentGateway) {
+            this.baseDir = baseDir;
+            this.syncPolicy = syncPolicy;
+            this.paymentGateway = paymentGateway;
+        }
+
+        synchronized Hotel addProperty(String propertyId, List<Room> rooms) {
+            if (properties.containsKey(propertyId)) {
+                throw new IllegalArgumentException("Property already exists: " + propertyId);
+            }
+            Hotel hotel = new Hotel(propertyId, baseDir.resolve(propertyId), rooms, syncPolicy, paymentGateway,
+                    holdTimer);
+            properties.put(propertyId, hotel);
+            return hotel;
+        }
+
+        Hotel findProperty(String propertyId) {
+            return properties.get(propertyId);
+        }
+
+        boolean bookRoom(String propertyId, String guestName, int roomNumber, LocalDate checkIn, LocalDate checkOut) {
+            Hotel hotel = findProperty(propertyId);
+            if (hotel == null) {
+                System.out.println("Property does not exist.");
+                return false;
+            }
+            return hotel.bookRoom(guestName, roomNumber, checkIn, checkOut);
+        }
+
+        boolean cancelReservation(String propertyId, String guestName, int roomNumber) {
+            Hotel hotel = findProperty(propertyId);
+            if (hotel == null) {
+                System.out.println("Property does not exist.");
+                return false;
+            }
+            return hotel.cancelReservation(guestName, roomNumber);
+        }
+
+        // Free rooms of the category for [checkIn, checkOut) in every property, keyed by property id.
+        // Properties are searched in parallel; those with nothing free are left out.
+        // Throws IllegalArgumentException for a stay no property could take.
+        Map<String, List<Room>> searchRooms(Category category, LocalDate checkIn, LocalDate checkOut) {
+            String invalid = Hotel.invalidStay(checkIn, checkOut);
+            if (invalid != null) throw new IllegalArgumentException(invalid);
+            Hotel[] shards = properties.values().toArray(new Hotel[0]);
+            return searchPool.invoke(new ShardSearch(shards, 0, shards.length, category, checkIn, checkOut));
+        }
+
+        void close() {
+            searchPool.shutdown();
+            for (Hotel hotel : properties.values()) hotel.close();
+            holdTimer.shutdownNow();
+        }
+
+        static class ShardSearch extends RecursiveTask<Map<String, List<Room>>> {
+            private static final long serialVersionUID = 1L;
+
+            final Hotel[] shards;
+            final int from;
+            final int to;
+            final Category category;
+            final LocalDate checkIn;
+            final LocalDate checkOut;
+
+            ShardSearch(Hotel[] shards, int from, int to, Category category, LocalDate checkIn, LocalDate checkOut) {
+                this.shards = shards;
+                this.from = from;
+                this.to = to;
+                this.category = category;
+                this.checkIn = checkIn;
+                this.checkOut = checkOut;
+            }
+
+            @Override
+            protected Map<String, List<Room>> compute() {
+                if (to - from <= 1) {
+                    Map<String, List<Room>> found = new TreeMap<>();
+                    if (to > from) {
+                        Hotel hotel = shards[from];
+                        List<Room> free = hotel.roomStream(category, checkIn, checkOut).toList();
+                        if (!free.isEmpty()) found.put(hotel.propertyId, free);
+                    }
+                    return found;
+                }
+                int mid = (from + to) >>> 1;
+                ShardSearch left = new ShardSearch(shards, from, mid, category, checkIn, checkOut);
+                left.fork();
+                Map<String, List<Room>> found = new ShardSearch(shards, mid, to, category, checkIn, checkOut).compute();
+                found.putAll(left.join());
+                return found;
+            }
+        }
+    }
+
+    // Reads a check-in date and a number of nights; returns {checkIn, checkOut} or null on bad input
+    static LocalDate[] readStay(Scanner scanner) {
+        System.out.print("Enter check-in date (YYYY-MM-DD): ");
+        LocalDate checkIn;
+        int nights;
+        try {
+            checkIn = LocalDate.parse(scanner.nextLine().trim());
+        } catch (DateTimeException e) {
+            System.out.println("Invalid date.");
+            return null;
+        }
+        System.out.print("Enter number of nights: ");
+        try {
+            nights = Integer.parseInt(scanner.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number of nights.");
+            return null;
+        }
+        if (nights <= 0) {
+            System.out.println("Invalid number of nights.");
+            return null;
+        }
+        if (nights > Hotel.MAX_NIGHTS) {
+            System.out.println("Stays are limited to " + Hotel.MAX_NIGHTS + " nights.");
+            return null;
+        }
+        try {
+            return new LocalDate[] { checkIn, checkIn.plusDays(nights) };
+        } catch (DateTimeException e) {
+            System.out.println("Invalid date.");
+            return null;
+        }
+    }
+
+    public static void main(String[] args) {
+        Scanner scanner = new Scanner(System.in);
+        Hotel hotel = new Hotel(SyncPolicy.EVERY_WRITE, new ConsolePaymentGateway(scanner));
+
+        while (true) {
+            System.out.println("\n--- Hotel Reservation System ---");
+            System.out.println("1. Show all rooms");
+            System.out.println("2. Search rooms by category");
+            System.out.println("3. Book a room");
+            System.out.println("4. Cancel a reservation");
+            System.out.println("5. View all bookings");
+            System.out.println("6. View my bookings");
+            System.out.println("7. Exit");
+            System.out.print("Enter choice: ");
+
+            String choice = scanner.nextLine();
+
+            switch (choice) {
+                case "1" -> hotel.showRooms();
+                case "2" -> {
+                    System.out.print("Enter category (STANDARD, DELUXE, SUITE): ");
+                    String cat = scanner.nextLine().toUpperCase();
+                    Category category;
+                    try {
+                        category = Category.valueOf(cat);
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Invalid category.");
+                        break;
+                    }
+                    LocalDate[] stay = readStay(scanner);
+                    if (stay == null) break;
+                    hotel.searchRooms(category, stay[0], stay[1]);
+                }
+                case "3" -> {
+                    System.out.print("Enter your name: ");
+                    String name = scanner.nextLine();
+                    System.out.print("Enter room number to book: ");
+                    int roomNum;
+                    try {
+                        roomNum = Integer.parseInt(scanner.nextLine());
+                    } catch (NumberFormatException e) {
+                        System.out.println("Invalid room number.");
+                        break;
+                    }
+                    LocalDate[] stay = readStay(scanner);
+                    if (stay == null) break;
+                    hotel.bookRoom(name, roomNum, stay[0], stay[1]);
+                }
+                case "4" -> {
+                    System.out.print("Enter your name: ");
+                    String name = scanner.nextLine();
+                    System.out.print("Enter room number to cancel: ");
+                    int roomNum;
+                    try {
+                        roomNum = Integer.parseInt(scanner.nextLine());
+                    } catch (NumberFormatException e) {
+                        System.out.println("Invalid room number.");
+                        break;
+                    }
+                    hotel.cancelReservation(name, roomNum);
+                }
+                case "5" -> hotel.viewBookings();
+                case "6" -> {
+                    System.out.print("Enter your name: ");
+                    hotel.viewBookings(scanner.nextLine());
+                }
+                case "7" -> {
+                    hotel.close();
+                    System.out.println("Exiting...");
+                    return;
+                }
+                default -> System.out.println("Invalid choice.");
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Multi-threaded stress test for Hotel: many threads book and cancel the same few rooms at once, and
+// no two reservations of a room may ever overlap, in memory or after reloading from disk. Also checks
+// that a booking whose journal write fails is not confirmed, and that over-long or out-of-range stays
+// are refused.
+//
+//   javac HotelReservationSystem.java HotelStressTest.java
+//   java HotelStressTest [threads] [operations per thread]
+//
+// Prints the violations found and exits with status 1 if there were any.
+public class HotelStressTest {
+    static final Set<String> failures = new LinkedHashSet<>(); // each distinct violation once
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 3_000;
+
+        // Bookings print one line each; keep them out of the test's output
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        String summary;
+        try {
+            summary = contention(threads, operations);
+            failedJournalWrite();
+            invalidStays();
+        } finally {
+            System.setOut(console);
+        }
+
+        System.out.println(summary);
+        for (String failure : failures) System.out.println("FAIL: " + failure);
+        System.out.println(failures.isEmpty() ? "No violations." : failures.size() + " violations.");
+        if (!failures.isEmpty()) System.exit(1);
+    }
+
+    static void check(boolean ok, String failure) {
+        if (!ok) {
+            synchronized (failures) {
+                failures.add(failure);
+            }
+        }
+    }
+
+    static HotelReservationSystem.Hotel open(Path dir, HotelReservationSystem.SyncPolicy policy) {
+        return new HotelReservationSystem.Hotel("stress", dir, HotelReservationSystem.Hotel.exampleRooms(), policy,
+                new HotelReservationSystem.SimulatedPaymentGateway(0, 0));
+    }
+
+    // Random bookings and cancels of ten rooms over a month from every thread
+    static String contention(int threads, int operations) throws Exception {
+        Path dir = Files.createTempDirectory("hotel-stress");
+        HotelReservationSystem.Hotel hotel = open(dir, HotelReservationSystem.SyncPolicy.GROUP);
+        LocalDate base = LocalDate.of(2030, 1, 1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> done = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            done.add(pool.submit(() -> {
+                Random random = new Random(thread);
+                for (int i = 0; i < operations; i++) {
+                    int room = 1 + random.nextInt(10);
+                    if (random.nextInt(3) == 0) {
+                        hotel.cancelReservation("guest" + random.nextInt(threads), room);
+                    } else {
+                        LocalDate checkIn = base.plusDays(random.nextInt(30));
+                        hotel.bookRoom("guest" + thread, room, checkIn, checkIn.plusDays(1 + random.nextInt(4)));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : done) future.get();
+        pool.shutdown();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        checkNoOverlaps(hotel, "in memory");
+        int stays = 0;
+        for (HotelReservationSystem.Room room : hotel.rooms) stays += room.stays.size();
+        check(stays == hotel.reservations.size(), "rooms hold " + stays + " stays for " + hotel.reservations.size()
+                + " reservations");
+        Set<Long> live = new LinkedHashSet<>(hotel.reservations.keySet());
+        hotel.close();
+
+        HotelReservationSystem.Hotel reloaded = open(dir, HotelReservationSystem.SyncPolicy.GROUP);
+        check(reloaded.reservations.keySet().equals(live), "reload found " + reloaded.reservations.size()
+                + " reservations instead of the " + live.size() + " live ones");
+        checkNoOverlaps(reloaded, "after reload");
+        reloaded.close();
+        return String.format("%d threads x %d bookings and cancels in %d ms; %d reservations live", threads,
+                operations, millis, live.size());
+    }
+
+    static void checkNoOverlaps(HotelReservationSystem.Hotel hotel, String when) {
+        Map<Integer, List<HotelReservationSystem.Reservation>> byRoom = new HashMap<>();
+        for (HotelReservationSystem.Reservation res : hotel.reservations.values()) {
+            byRoom.computeIfAbsent(res.roomNumber, k -> new ArrayList<>()).add(res);
+        }
+        for (List<HotelReservationSystem.Reservation> stays : byRoom.values()) {
+            for (int i = 0; i < stays.size(); i++) {
+                for (int j = i + 1; j < stays.size(); j++) {
+                    HotelReservationSystem.Reservation a = stays.get(i), b = stays.get(j);
+                    check(!(a.checkIn.isBefore(b.checkOut) && b.checkIn.isBefore(a.checkOut)),
+                            "double booking " + when + ": " + a + " and " + b);
+                }
+            }
+        }
+    }
+
+    // A booking the journal cannot record must be refused and leave the room free
+    static void failedJournalWrite() throws IOException {
+        Path dir = Files.createTempDirectory("hotel-stress");
+        HotelReservationSystem.Hotel hotel = open(dir, HotelReservationSystem.SyncPolicy.EVERY_WRITE);
+        LocalDate checkIn = LocalDate.of(2030, 1, 1);
+        hotel.journal.channel.close();
+        check(!hotel.bookRoom("guest", 1, checkIn, checkIn.plusDays(2)), "booking confirmed without a journal write");
+        check(hotel.reservations.isEmpty(), "unjournaled booking kept in the store");
+        check(hotel.findRoom(1).isFree(checkIn, checkIn.plusDays(2)), "unjournaled booking kept the room");
+        hotel.holdTimer.shutdownNow();
+    }
+
+    // Stays longer than MAX_NIGHTS or past what an int epoch day holds are refused by booking and search
+    static void invalidStays() throws IOException {
+        Path dir = Files.createTempDirectory("hotel-stress");
+        HotelReservationSystem.Hotel hotel = open(dir, HotelReservationSystem.SyncPolicy.NONE);
+        LocalDate checkIn = LocalDate.of(2030, 1, 1);
+        LocalDate tooLate = LocalDate.ofEpochDay(Integer.MAX_VALUE);
+        int limit = HotelReservationSystem.Hotel.MAX_NIGHTS;
+        check(hotel.bookRoom("guest", 1, checkIn, checkIn.plusDays(limit)), "stay of MAX_NIGHTS refused");
+        check(!hotel.bookRoom("guest", 2, checkIn, checkIn.plusDays(limit + 1)), "stay over MAX_NIGHTS booked");
+        check(!hotel.bookRoom("guest", 2, checkIn, checkIn.plusDays(3_000_000)), "3,000,000-night stay booked");
+        check(!hotel.bookRoom("guest", 3, tooLate, tooLate.plusDays(1)), "stay past the int epoch day range booked");
+        check(hotel.reservations.size() == 1, "refused stays kept " + (hotel.reservations.size() - 1) + " reservations");
+        expectRefused(() -> hotel.roomPage(null, checkIn, checkIn.plusDays(limit + 1), -1, 10), "over-long room page");
+        expectRefused(() -> hotel.roomStream(null, tooLate, tooLate.plusDays(1)).count(), "out-of-range room stream");
+        HotelReservationSystem.HotelGroup group = new HotelReservationSystem.HotelGroup(dir.resolve("group"),
+                HotelReservationSystem.SyncPolicy.NONE, new HotelReservationSystem.SimulatedPaymentGateway(0, 0));
+        group.addProperty("p1", HotelReservationSystem.Hotel.exampleRooms());
+        expectRefused(() -> group.searchRooms(HotelReservationSystem.Category.STANDARD, checkIn,
+                checkIn.plusDays(3_000_000)), "over-long group search");
+        group.close();
+        hotel.close();
+    }
+
+    static void expectRefused(Runnable search, String what) {
+        try {
+            search.run();
+            check(false, what + " was accepted");
+        } catch (IllegalArgumentException e) {
+            // refused
+        }
+    }
+}
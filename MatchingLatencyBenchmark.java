@@ -0,0 +1,94 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Latency of the matching engine under a mixed load: limit orders around the price (about half of
+// them cross), market orders and cancels of resting orders, all on one symbol from one thread. Each
+// call is timed on its own and the latencies are reported per kind of order as percentiles.
+// Accounts are not journaled, so this measures matching, reservations and fills only.
+//
+//   javac -encoding UTF-8 StockTradingPlatform.java MatchingLatencyBenchmark.java
+//   java MatchingLatencyBenchmark [operations] [warm-up operations] [seed]
+public class MatchingLatencyBenchmark {
+    static final String[] KINDS = {"limit", "market", "cancel", "all"};
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        Market market = new Market(seed);
+        int id = market.addSymbol("AAPL", 150.0);
+        MatchingEngine exchange = new MatchingEngine(market, new TradeHistory(market));
+        PortfolioValuation valuation = new PortfolioValuation(market);
+        User[] traders = new User[2];
+        for (int k = 0; k < traders.length; k++) {
+            traders[k] = new User("trader" + k, valuation, null);
+            traders[k].quiet = true;
+            traders[k].balance = Money.of(1e12);
+            traders[k].open("AAPL", 1_000_000_000, Money.times(Money.of(150.0), 1_000_000_000));
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        run(exchange, id, traders, random, warmup, null);
+        long[][] latencies = new long[KINDS.length][];
+        for (int k = 0; k < KINDS.length; k++) latencies[k] = new long[operations];
+        int[] counts = run(exchange, id, traders, random, operations, latencies);
+
+        System.out.printf("%,d operations after %,d warm-up, %,d orders resting at the end%n", operations, warmup,
+                exchange.restingIn.size());
+        System.out.printf("%-8s %10s %8s %8s %8s %8s %10s  (ns)%n", "", "count", "p50", "p90", "p99", "p99.9", "max");
+        for (int k = 0; k < KINDS.length; k++) {
+            long[] sorted = Arrays.copyOf(latencies[k], counts[k]);
+            Arrays.sort(sorted);
+            System.out.printf("%-8s %,10d %8d %8d %8d %8d %,10d%n", KINDS[k], counts[k], percentile(sorted, 50),
+                    percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 99.9),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        }
+    }
+
+    // Runs the mix, recording each call's latency by kind when latencies is given; returns the counts
+    static int[] run(MatchingEngine exchange, int id, User[] traders, SplittableRandom random, int operations,
+            long[][] latencies) {
+        int[] counts = new int[KINDS.length];
+        ArrayDeque<Long> resting = new ArrayDeque<>();
+        ArrayDeque<User> owners = new ArrayDeque<>();
+        long mid = Money.of(150.0);
+        for (int i = 0; i < operations; i++) {
+            User trader = traders[random.nextInt(traders.length)];
+            Side side = random.nextBoolean() ? Side.BUY : Side.SELL;
+            int quantity = 1 + random.nextInt(100);
+            int roll = random.nextInt(100);
+            int kind;
+            long start = System.nanoTime();
+            if (roll < 60) {
+                kind = 0;
+                // Within a dollar either side of the mid, so about half of the orders cross
+                long price = mid + (random.nextInt(201) - 100) * Money.CENT;
+                long orderId = exchange.submitLimit(trader, id, side, price, quantity);
+                if (orderId > 0) {
+                    resting.add(orderId);
+                    owners.add(trader);
+                }
+            } else if (roll < 80) {
+                kind = 1;
+                exchange.submitMarket(trader, id, side, quantity);
+            } else {
+                kind = 2;
+                Long orderId = resting.poll();
+                if (orderId != null) exchange.cancel(owners.poll(), orderId);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (latencies != null) {
+                latencies[kind][counts[kind]++] = elapsed;
+                latencies[3][counts[3]++] = elapsed;
+            }
+        }
+        return counts;
+    }
+
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p / 100 * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,200 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+// Money arithmetic on the account paths, three ways: scaled long micro-dollars through Money, as the
+// accounts keep it now; double, with the average price recomputed on every buy as before; and BigDecimal.
+// One script of cent prices and share counts drives all three over a portfolio of holdings:
+//   buy       - pay price * quantity and add to the holding's cost
+//   sell      - receive price * quantity and take the shares' part of the cost out of the holding
+//   valuation - value every holding at its price
+// Reports ns per operation for each path, then how far long and double end up from the exact result.
+//
+//   javac -encoding UTF-8 StockTradingPlatform.java MoneyBenchmark.java
+//   java MoneyBenchmark [operations] [holdings]
+public class MoneyBenchmark {
+    static final double START = 1_000_000_000.0; // dollars, so no account runs out
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int holdings = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        // The script: which holding, at what price in cents, how many shares
+        SplittableRandom random = new SplittableRandom(1);
+        int[] holding = new int[operations];
+        int[] cents = new int[operations];
+        int[] shares = new int[operations];
+        for (int i = 0; i < operations; i++) {
+            holding[i] = random.nextInt(holdings);
+            cents[i] = 1_000 + random.nextInt(100_000); // $10.00 to $1,009.99
+            shares[i] = 1 + random.nextInt(100);
+        }
+        // Each price in every representation, converted once as the accounts would hold it
+        double[] dollars = new double[operations];
+        long[] micros = new long[operations];
+        BigDecimal[] decimals = new BigDecimal[operations];
+        for (int i = 0; i < operations; i++) {
+            dollars[i] = cents[i] / 100.0;
+            micros[i] = cents[i] * Money.CENT;
+            decimals[i] = BigDecimal.valueOf(cents[i], 2);
+        }
+
+        System.out.printf("%,d operations over %d holdings%n", operations, holdings);
+        System.out.printf("%-12s %10s %10s %10s  (ns/op)%n", "", "buy", "sell", "valuation");
+        LongAccount exact = null;
+        DoubleAccount approximate = null;
+        DecimalAccount decimal = null;
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2; // the first rounds warm up every path
+            exact = new LongAccount(holdings);
+            approximate = new DoubleAccount(holdings);
+            decimal = new DecimalAccount(holdings);
+            long[] times = new long[3];
+            for (int path = 0; path < 3; path++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < operations; i++) exact.run(path, holding[i], micros[i], shares[i]);
+                times[path] = System.nanoTime() - start;
+            }
+            if (report) print("long", times, operations);
+            for (int path = 0; path < 3; path++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < operations; i++) approximate.run(path, holding[i], dollars[i], shares[i]);
+                times[path] = System.nanoTime() - start;
+            }
+            if (report) print("double", times, operations);
+            for (int path = 0; path < 3; path++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < operations; i++) decimal.run(path, holding[i], decimals[i], shares[i]);
+                times[path] = System.nanoTime() - start;
+            }
+            if (report) print("BigDecimal", times, operations);
+        }
+
+        // Buys and sells interleaved on fresh accounts, then the balance and the cost of the shares still held
+        exact = new LongAccount(holdings);
+        approximate = new DoubleAccount(holdings);
+        decimal = new DecimalAccount(holdings);
+        for (int i = 0; i < operations; i++) {
+            int path = i % 3 == 2 ? 1 : 0; // two buys to every sell, so holdings build up
+            exact.run(path, holding[i], micros[i], shares[i]);
+            approximate.run(path, holding[i], dollars[i], shares[i]);
+            decimal.run(path, holding[i], decimals[i], shares[i]);
+        }
+        BigDecimal exactBalance = decimal.balance;
+        BigDecimal exactCost = BigDecimal.ZERO;
+        for (BigDecimal cost : decimal.cost) exactCost = exactCost.add(cost);
+        double doubleCost = 0;
+        for (int h = 0; h < holdings; h++) doubleCost += approximate.avgPrice[h] * approximate.quantity[h];
+        long longCost = 0;
+        for (long cost : exact.cost) longCost += cost;
+        System.out.println("Distance from the exact BigDecimal result after the interleaved buys and sells:");
+        System.out.printf("  long:   balance $%s, cost of holdings $%s%n",
+                difference(BigDecimal.valueOf(exact.balance, 6), exactBalance),
+                difference(BigDecimal.valueOf(longCost, 6), exactCost));
+        System.out.printf("  double: balance $%s, cost of holdings $%s%n",
+                difference(new BigDecimal(approximate.balance), exactBalance),
+                difference(new BigDecimal(doubleCost), exactCost));
+    }
+
+    static String difference(BigDecimal value, BigDecimal exact) {
+        return value.subtract(exact).setScale(6, RoundingMode.HALF_EVEN).abs().toPlainString();
+    }
+
+    static void print(String name, long[] times, int operations) {
+        System.out.printf("%-12s %10.2f %10.2f %10.2f%n", name, (double) times[0] / operations,
+                (double) times[1] / operations, (double) times[2] / operations);
+    }
+
+    // Paths: 0 buy, 1 sell, 2 valuation; valuation prices every holding at the given price
+    static class LongAccount {
+        long balance = Money.of(START);
+        final int[] quantity;
+        final long[] cost;
+
+        LongAccount(int holdings) {
+            quantity = new int[holdings];
+            cost = new long[holdings];
+        }
+
+        void run(int path, int h, long price, int shares) {
+            if (path == 0) {
+                long amount = Money.times(price, shares);
+                balance -= amount;
+                cost[h] += amount;
+                quantity[h] += shares;
+            } else if (path == 1) {
+                int sold = Math.min(shares, quantity[h]);
+                if (sold == 0) return;
+                balance += Money.times(price, sold);
+                cost[h] -= sold == quantity[h] ? cost[h] : Money.part(cost[h], sold, quantity[h]);
+                quantity[h] -= sold;
+            } else {
+                long value = 0;
+                for (int q : quantity) value += Money.times(price, q);
+                sink += value;
+            }
+        }
+    }
+
+    static class DoubleAccount {
+        double balance = START;
+        final int[] quantity;
+        final double[] avgPrice;
+
+        DoubleAccount(int holdings) {
+            quantity = new int[holdings];
+            avgPrice = new double[holdings];
+        }
+
+        void run(int path, int h, double price, int shares) {
+            if (path == 0) {
+                balance -= price * shares;
+                avgPrice[h] = (avgPrice[h] * quantity[h] + price * shares) / (quantity[h] + shares);
+                quantity[h] += shares;
+            } else if (path == 1) {
+                int sold = Math.min(shares, quantity[h]);
+                balance += price * sold;
+                quantity[h] -= sold;
+            } else {
+                double value = 0;
+                for (int q : quantity) value += price * q;
+                sink += (long) value;
+            }
+        }
+    }
+
+    static class DecimalAccount {
+        BigDecimal balance = BigDecimal.valueOf(START);
+        final int[] quantity;
+        final BigDecimal[] cost;
+
+        DecimalAccount(int holdings) {
+            quantity = new int[holdings];
+            cost = new BigDecimal[holdings];
+            for (int h = 0; h < holdings; h++) cost[h] = BigDecimal.ZERO;
+        }
+
+        void run(int path, int h, BigDecimal price, int shares) {
+            if (path == 0) {
+                BigDecimal amount = price.multiply(BigDecimal.valueOf(shares));
+                balance = balance.subtract(amount);
+                cost[h] = cost[h].add(amount);
+                quantity[h] += shares;
+            } else if (path == 1) {
+                int sold = Math.min(shares, quantity[h]);
+                if (sold == 0) return;
+                balance = balance.add(price.multiply(BigDecimal.valueOf(sold)));
+                // The shares' part of the cost, rounded down to the micro-dollar like Money.part
+                cost[h] = cost[h].subtract(sold == quantity[h] ? cost[h] : cost[h].multiply(BigDecimal.valueOf(sold))
+                        .divide(BigDecimal.valueOf(quantity[h]), 6, RoundingMode.DOWN));
+                quantity[h] -= sold;
+            } else {
+                BigDecimal value = BigDecimal.ZERO;
+                for (int q : quantity) value = value.add(price.multiply(BigDecimal.valueOf(q)));
+                sink += value.longValue();
+            }
+        }
+    }
+
+    static long sink;
+}
@@ -0,0 +1,142 @@
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+
+// Price lookups and updates over 10k symbols: Market's interned ids and primitive price array against
+// the map of boxed Stock objects it replaced, which upper-cased the symbol on every lookup. Symbols are
+// visited in a shuffled order, also typed in lower case, which is what makes upper-casing allocate.
+// Reports the time and the bytes allocated per operation.
+//
+//   javac -encoding UTF-8 StockTradingPlatform.java PriceStoreBenchmark.java
+//   java PriceStoreBenchmark [symbols] [passes over all symbols per measurement]
+public class PriceStoreBenchmark {
+    // The previous store: a HashMap from symbol to a mutable Stock holding a double price
+    static class MapMarket {
+        static class Stock {
+            final String symbol;
+            double price;
+
+            Stock(String symbol, double price) {
+                this.symbol = symbol;
+                this.price = price;
+            }
+        }
+
+        final Map<String, Stock> stocks = new HashMap<>();
+
+        Stock getStock(String symbol) {
+            return stocks.get(symbol.toUpperCase());
+        }
+    }
+
+    static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int symbols = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        Market market = new Market(1);
+        MapMarket previous = new MapMarket();
+        String[] names = new String[symbols];
+        for (int i = 0; i < symbols; i++) {
+            names[i] = "SYM" + i;
+            market.addSymbol(names[i], 100.0);
+            previous.stocks.put(names[i], new MapMarket.Stock(names[i], 100.0));
+        }
+        // One shuffled visiting order, by name and by id, shared by every case
+        SplittableRandom random = new SplittableRandom(1);
+        String[] order = names.clone();
+        for (int i = symbols - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        int[] ids = new int[symbols];
+        String[] typed = new String[symbols];
+        for (int i = 0; i < symbols; i++) {
+            ids[i] = market.idOf(order[i]);
+            typed[i] = order[i].toLowerCase();
+        }
+
+        System.out.printf("%,d symbols, %,d passes per measurement%n", symbols, passes);
+        System.out.printf("%-36s %10s %12s%n", "", "ns/op", "bytes/op");
+        long operations = (long) symbols * passes;
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2; // the first rounds warm up every case
+            measure(report, "lookup: map by symbol", operations, () -> {
+                long sum = 0;
+                for (int p = 0; p < passes; p++) {
+                    for (String name : order) sum += (long) previous.getStock(name).price;
+                }
+                return sum;
+            });
+            measure(report, "lookup: market by symbol", operations, () -> {
+                long sum = 0;
+                for (int p = 0; p < passes; p++) {
+                    for (String name : order) sum += market.price(market.idOf(name));
+                }
+                return sum;
+            });
+            measure(report, "lookup: map by lower-case symbol", operations, () -> {
+                long sum = 0;
+                for (int p = 0; p < passes; p++) {
+                    for (String name : typed) sum += (long) previous.getStock(name).price;
+                }
+                return sum;
+            });
+            measure(report, "lookup: market by lower-case symbol", operations, () -> {
+                long sum = 0;
+                for (int p = 0; p < passes; p++) {
+                    for (String name : typed) sum += market.price(market.idOf(name));
+                }
+                return sum;
+            });
+            measure(report, "lookup: market by id", operations, () -> {
+                long sum = 0;
+                for (int p = 0; p < passes; p++) {
+                    for (int id : ids) sum += market.price(id);
+                }
+                return sum;
+            });
+            measure(report, "update: map by symbol", operations, () -> {
+                for (int p = 0; p < passes; p++) {
+                    for (String name : order) {
+                        MapMarket.Stock stock = previous.getStock(name);
+                        stock.price += stock.price / 10_000;
+                    }
+                }
+                return (long) previous.getStock(order[0]).price;
+            });
+            measure(report, "update: market by id", operations, () -> {
+                for (int p = 0; p < passes; p++) {
+                    for (int id : ids) {
+                        long price = market.price(id);
+                        market.setPrice(id, price + price / 10_000);
+                    }
+                }
+                return market.price(ids[0]);
+            });
+            // Keep the prices where they started, so every round does the same work
+            for (MapMarket.Stock stock : previous.stocks.values()) stock.price = 100.0;
+            for (int id : ids) market.setPrice(id, Money.of(100.0));
+        }
+    }
+
+    static long sink;
+
+    static void measure(boolean report, String name, long operations, LongSupplier run) {
+        long allocated = THREADS.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        sink += run.getAsLong();
+        long elapsed = System.nanoTime() - start;
+        allocated = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+        if (report) {
+            System.out.printf("%-36s %10.2f %12.2f%n", name, (double) elapsed / operations,
+                    (double) allocated / operations);
+        }
+    }
+}
@@ -1,218 +1,1851 @@
-import java.io.*;
-import java.util.*;
-
-class Stock {
-    String symbol;
-    double price;
-
-    Stock(String symbol, double price) {
-        this.symbol = symbol;
-        this.price = price;
-    }
-
-    void updatePrice() {
-        double change = (Math.random() * 4) - 2; // Random change between -2% and +2%
-        price += price * (change / 100);
-    }
-
-    public String toString() {
-        return symbol + ": $" + String.format("%.2f", price);
-    }
-}
-
-class Market {
-    Map<String, Stock> stocks = new HashMap<>();
-
-    Market() {
-        stocks.put("AAPL", new Stock("AAPL", 150.0));
-        stocks.put("GOOGL", new Stock("GOOGL", 2800.0));
-        stocks.put("MSFT", new Stock("MSFT", 300.0));
-        stocks.put("TSLA", new Stock("TSLA", 750.0));
-    }
-
-    void updatePrices() {
-        for (Stock stock : stocks.values()) {
-            stock.updatePrice();
-        }
-    }
-
-    void displayMarket() {
-        System.out.println("\n Current Market Prices:");
-        for (Stock stock : stocks.values()) {
-            System.out.println(stock);
-        }
-    }
-
-    Stock getStock(String symbol) {
-        return stocks.get(symbol.toUpperCase());
-    }
-}
-
-class PortfolioEntry {
-    int quantity;
-    double avgPrice;
-
-    PortfolioEntry(int quantity, double avgPrice) {
-        this.quantity = quantity;
-        this.avgPrice = avgPrice;
-    }
-}
-
-class User {
-    String name;
-    double balance;
-    Map<String, PortfolioEntry> portfolio = new HashMap<>();
-
-    User(String name) {
-        this.name = name;
-        this.balance = 10000.0;
-    }
-
-    void buyStock(String symbol, int quantity, Market market) {
-        Stock stock = market.getStock(symbol);
-        if (stock == null) {
-            System.out.println("Stock not found.");
-            return;
-        }
-
-        double cost = stock.price * quantity;
-        if (balance >= cost) {
-            balance -= cost;
-            if (portfolio.containsKey(symbol)) {
-                PortfolioEntry entry = portfolio.get(symbol);
-                int newQty = entry.quantity + quantity;
-                double newAvg = ((entry.avgPrice * entry.quantity) + (stock.price * quantity)) / newQty;
-                portfolio.put(symbol, new PortfolioEntry(newQty, newAvg));
-            } else {
-                portfolio.put(symbol, new PortfolioEntry(quantity, stock.price));
-            }
-            System.out.printf(" Bought %d shares of %s at $%.2f\n", quantity, symbol, stock.price);
-        } else {
-            System.out.println(" Insufficient balance.");
-        }
-    }
-
-    void sellStock(String symbol, int quantity, Market market) {
-        if (!portfolio.containsKey(symbol)) {
-            System.out.println(" You don't own this stock.");
-            return;
-        }
-
-        PortfolioEntry entry = portfolio.get(symbol);
-        if (entry.quantity < quantity) {
-            System.out.println("Not enough shares to sell.");
-            return;
-        }
-
-        Stock stock = market.getStock(symbol);
-        double revenue = stock.price * quantity;
-        balance += revenue;
-
-        entry.quantity -= quantity;
-        if (entry.quantity == 0) {
-            portfolio.remove(symbol);
-        }
-
-        System.out.printf(" Sold %d shares of %s at $%.2f\n", quantity, symbol, stock.price);
-    }
-
-    void viewPortfolio(Market market) {
-        System.out.println("\n Portfolio Overview:");
-        double totalValue = 0;
-        for (String symbol : portfolio.keySet()) {
-            PortfolioEntry entry = portfolio.get(symbol);
-            Stock stock = market.getStock(symbol);
-            double currentValue = entry.quantity * stock.price;
-            totalValue += currentValue;
-            System.out.printf("%s: %d shares | Avg Buy: $%.2f | Current: $%.2f | Value: $%.2f\n",
-symbol, entry.quantity, entry.avgPrice, stock.price, currentValue);
-        }
-        System.out.printf("\n Cash Balance: $%.2f\n", balance);
-        System.out.printf(" Total Portfolio Value: $%.2f\n", totalValue + balance);
-    }
-
-    void savePortfolio() {
-        try (PrintWriter writer = new PrintWriter(name + "_portfolio.txt")) {
-            writer.println(balance);
-            for (String symbol : portfolio.keySet()) {
-                PortfolioEntry e = portfolio.get(symbol);
-                writer.printf("%s,%d,%.2f\n", symbol, e.quantity, e.avgPrice);
-            }
-            System.out.println("Portfolio saved.");
-        } catch (IOException e) {
-            System.out.println(" Error saving portfolio.");
-        }
-    }
-
-    void loadPortfolio() {
-        try (Scanner sc = new Scanner(new File(name + "_portfolio.txt"))) {
-            balance = Double.parseDouble(sc.nextLine());
-            while (sc.hasNextLine()) {
-                String[] parts = sc.nextLine().split(",");
-                String symbol = parts[0];
-                int quantity = Integer.parseInt(parts[1]);
-                double avgPrice = Double.parseDouble(parts[2]);
-                portfolio.put(symbol, new PortfolioEntry(quantity, avgPrice));
-            }
-            System.out.println(" Portfolio loaded.");
-        } catch (IOException e) {
-            System.out.println("No saved portfolio found.");
-        }
-    }
-}
-
-public class StockTradingPlatform {
-    public static void main(String[] args) {
-        Scanner sc = new Scanner(System.in);
-        Market market = new Market();
-
-        System.out.print("Enter your name: ");
-        String name = sc.nextLine();
-
-        User user = new User(name);
-        user.loadPortfolio();
-
-        while (true) {
-            market.updatePrices();
-            market.displayMarket();
-
-            System.out.println("\nMenu:");
-            System.out.println("1. Buy Stock");
-            System.out.println("2. Sell Stock");
-            System.out.println("3. View Portfolio");
-            System.out.println("4. Save & Exit");
-            System.out.print("Choose an option: ");
-
-            String choice = sc.nextLine();
-
-            switch (choice) {
-                case "1":
-                    System.out.print("Enter stock symbol to buy: ");
-                    String buySymbol = sc.nextLine().toUpperCase();
-                    System.out.print("Enter quantity: ");
-                    int buyQty = sc.nextInt(); sc.nextLine();
-                    user.buyStock(buySymbol, buyQty, market);
-                    break;
-                case "2":
-                    System.out.print("Enter stock symbol to sell: ");
-                    String sellSymbol = sc.nextLine().toUpperCase();
-                    System.out.print("Enter quantity: ");
-                    int sellQty = sc.nextInt(); sc.nextLine();
-                    user.sellStock(sellSymbol, sellQty, market);
-                    break;
-                case "3":
-                    user.viewPortfolio(market);
-                    break;
-                case "4":
-                    user.savePortfolio();
-                    System.out.println("👋 Exiting... Goodbye!");
-                    return;
-                default:
-                    System.out.println("Invalid option.");
-            }
-
-            System.out.println("\nPress Enter to continue...");
-            sc.nextLine();
-        }
-    }
-}
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+// Money as a long count of micro-dollars. Sums and products are exact and allocate nothing;
+// amounts become doubles only for display and statistics.
+final class Money {
+    static final long SCALE = 1_000_000;
+    static final long CENT = SCALE / 100; // the order book's tick size
+
+    private Money() {
+    }
+
+    static long of(double dollars) {
+        return Math.round(dollars * SCALE);
+    }
+
+    static double toDouble(long micros) {
+        return (double) micros / SCALE;
+    }
+
+    // price * quantity; throws rather than wrapping on overflow
+    static long times(long price, int quantity) {
+        return Math.multiplyExact(price, (long) quantity);
+    }
+
+    // The part of total that belongs to part out of whole shares, rounded down, without overflowing
+    static long part(long total, int part, int whole) {
+        return total / whole * part + total % whole * part / whole;
+    }
+
+    static long toCent(long micros) {
+        return Math.floorDiv(micros + CENT / 2, CENT) * CENT;
+    }
+}
+
+// Market prices. Each symbol is interned once to a dense id; prices live in a primitive array
+// indexed by id, so reading or moving a price allocates nothing. Every symbol walks on its own
+// random stream split from one seed, so a seed replays the same prices however symbols are scheduled.
+class Market {
+    static final VarHandle PRICE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    final Map<String, Integer> ids = new HashMap<>();
+    final SplittableRandom random;
+    String[] symbols = new String[16];
+    long[] prices = new long[16]; // micro-dollars; written by the market data thread, read by order entry
+    SplittableRandom[] walks = new SplittableRandom[16]; // each used by one thread at a time
+    int size;
+
+    Market() {
+        this(System.nanoTime());
+        addSymbol("AAPL", 150.0);
+        addSymbol("GOOGL", 2800.0);
+        addSymbol("MSFT", 300.0);
+        addSymbol("TSLA", 750.0);
+    }
+
+    // An empty market whose prices are reproducible for the seed
+    Market(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    // Symbols must all be listed before prices start moving
+    int addSymbol(String symbol, double price) {
+        Integer existing = ids.get(symbol);
+        if (existing != null) return existing;
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+            prices = Arrays.copyOf(prices, size * 2);
+            walks = Arrays.copyOf(walks, size * 2);
+        }
+        symbols[size] = symbol;
+        prices[size] = Money.of(price);
+        walks[size] = random.split();
+        ids.put(symbol, size);
+        return size++;
+    }
+
+    // Id of the symbol, or -1 if it is not listed; only non-canonical input pays for upper-casing
+    int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id == null) id = ids.get(symbol.toUpperCase());
+        return id == null ? -1 : id;
+    }
+
+    String symbol(int id) {
+        return symbols[id];
+    }
+
+    long price(int id) {
+        return (long) PRICE.getAcquire(prices, id);
+    }
+
+    void setPrice(int id, long price) {
+        PRICE.setRelease(prices, id, price);
+    }
+
+    // Random change between -2% and +2%; returns the new price
+    long updatePrice(int id) {
+        double change = walks[id].nextDouble(-2, 2);
+        long price = price(id);
+        price += Math.round(price * (change / 100));
+        setPrice(id, price);
+        return price;
+    }
+
+    void displayMarket() {
+        System.out.println("\n Current Market Prices:");
+        for (int id = 0; id < size; id++) {
+            System.out.println(symbols[id] + ": $" + String.format("%.2f", Money.toDouble(price(id))));
+        }
+    }
+}
+
+interface PriceListener {
+    void onPrice(int symbolId, long price, long sequence);
+}
+
+// Single-producer broadcast ring buffer of price ticks. Every subscriber sees every tick in order;
+// the producer never overwrites a slot the slowest subscriber has not read, and nobody takes a lock.
+class TickRingBuffer {
+    final int mask;
+    final int[] symbolIds;
+    final long[] prices;
+    final AtomicLong cursor = new AtomicLong(-1); // last published sequence
+    final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    final AtomicInteger sleepers = new AtomicInteger(); // subscribers parked until the next publish
+    long cachedGate = -1; // producer only: lowest subscriber sequence last seen
+
+    TickRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two");
+        mask = capacity - 1;
+        symbolIds = new int[capacity];
+        prices = new long[capacity];
+    }
+
+    static final int SPINS = 100; // then the producer parks between checks of a full ring, and idle subscribers sleep
+    static final long IDLE_PARK_NANOS = 100_000_000; // an idle subscriber still looks this often, as a safety net
+
+    // Must only be called from the single producer thread
+    void publish(int symbolId, long price) {
+        long next = cursor.get() + 1;
+        long wrap = next - symbolIds.length;
+        for (int spins = 0; wrap > cachedGate; spins++) {
+            cachedGate = minGate(next - 1);
+            if (wrap <= cachedGate) break;
+            if (spins < SPINS) Thread.onSpinWait();
+            else LockSupport.parkNanos(50_000);
+        }
+        int slot = (int) next & mask;
+        symbolIds[slot] = symbolId;
+        prices[slot] = price;
+        // Volatile, not lazySet: the cursor must be visible before sleepers is read, or a subscriber
+        // that just looked at the old cursor could sleep through this tick
+        cursor.set(next);
+        if (sleepers.get() > 0) {
+            for (Subscription s : subscriptions) {
+                if (s.sleeping) LockSupport.unpark(s.thread);
+            }
+        }
+    }
+
+    long minGate(long published) {
+        long min = published;
+        for (Subscription s : subscriptions) min = Math.min(min, s.sequence.get());
+        return min;
+    }
+
+    // Delivers every tick published from now on to the listener on its own daemon thread
+    Subscription subscribe(PriceListener listener) {
+        Subscription s = new Subscription(listener, cursor.get());
+        subscriptions.add(s);
+        s.thread.start();
+        return s;
+    }
+
+    class Subscription implements AutoCloseable {
+        final AtomicLong sequence; // last tick handed to the listener
+        final PriceListener listener;
+        final Thread thread;
+        volatile boolean running = true;
+        volatile boolean sleeping;
+
+        Subscription(PriceListener listener, long start) {
+            this.listener = listener;
+            this.sequence = new AtomicLong(start);
+            this.thread = new Thread(this::run, "tick-subscriber");
+            this.thread.setDaemon(true);
+        }
+
+        // Spins briefly when caught up, then sleeps until the producer publishes again.
+        // A listener that throws skips that tick only. Should the thread die anyway, it unsubscribes
+        // so the producer never waits on a sequence that will not move again.
+        void run() {
+            try {
+                long next = sequence.get() + 1;
+                int idle = 0;
+                while (running) {
+                    long available = cursor.get();
+                    if (available < next) {
+                        if (++idle < SPINS) {
+                            Thread.onSpinWait();
+                        } else {
+                            sleep(next);
+                        }
+                        continue;
+                    }
+                    idle = 0;
+                    for (; next <= available; next++) {
+                        int slot = (int) next & mask;
+                        try {
+                            listener.onPrice(symbolIds[slot], prices[slot], next);
+                        } catch (RuntimeException e) {
+                            System.out.println("Price listener failed on tick " + next + ": " + e);
+                        }
+                    }
+                    sequence.lazySet(available);
+                }
+            } finally {
+                close();
+            }
+        }
+
+        // Announces the sleep before the last look at the cursor, so either that look sees the next tick or
+        // the producer publishing it sees the sleeper and wakes it
+        void sleep(long next) {
+            sleeping = true;
+            sleepers.incrementAndGet();
+            if (cursor.get() < next && running) LockSupport.parkNanos(IDLE_PARK_NANOS);
+            sleeping = false;
+            sleepers.decrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            subscriptions.remove(this);
+        }
+    }
+}
+
+// Moves prices on its own scheduler thread and publishes each change to subscribers,
+// so the random walk never runs on the order-entry thread
+class MarketDataEngine {
+    final Market market;
+    final TickRingBuffer ticks = new TickRingBuffer(1 << 16);
+    final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "market-data");
+        t.setDaemon(true);
+        return t;
+    });
+
+    MarketDataEngine(Market market) {
+        this.market = market;
+    }
+
+    void start(long periodMillis) {
+        scheduler.scheduleAtFixedRate(this::tick, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // One random-walk step for every symbol
+    void tick() {
+        for (int id = 0; id < market.size; id++) {
+            ticks.publish(id, market.updatePrice(id));
+        }
+    }
+
+    TickRingBuffer.Subscription subscribe(PriceListener listener) {
+        return ticks.subscribe(listener);
+    }
+
+    void stop() {
+        scheduler.shutdownNow();
+    }
+}
+
+enum Side {
+    BUY, SELL
+}
+
+// An incoming or resting order. Instances are pooled per order book and reused once closed.
+class Order {
+    long id;
+    Side side;
+    long price;          // limit in micro-dollars; market orders carry the most aggressive possible price
+    int quantity;        // still open
+    long reservedCash;   // buys: cash set aside for the unfilled part
+    User owner;          // null for house liquidity
+    Order prev, next;    // time priority within the price level
+    PriceLevel level;
+}
+
+// Resting orders at one price, oldest first; levels of a side are chained in price order
+class PriceLevel {
+    long price;
+    Order head, tail;
+    PriceLevel lower, higher;
+
+    void append(Order order) {
+        order.level = this;
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) head = order;
+        else tail.next = order;
+        tail = order;
+    }
+
+    void remove(Order order) {
+        if (order.prev == null) head = order.next;
+        else order.prev.next = order.next;
+        if (order.next == null) tail = order.prev;
+        else order.next.prev = order.prev;
+        order.prev = order.next = null;
+        order.level = null;
+    }
+}
+
+// One side of a book: a tree to find a price's level, and the level chain that matching walks
+class BookSide {
+    final boolean bids;
+    final TreeMap<Long, PriceLevel> levels = new TreeMap<>();
+    PriceLevel best;
+
+    BookSide(boolean bids) {
+        this.bids = bids;
+    }
+
+    PriceLevel worse(PriceLevel level) {
+        return bids ? level.lower : level.higher;
+    }
+
+    void insert(PriceLevel level) {
+        Map.Entry<Long, PriceLevel> below = levels.lowerEntry(level.price);
+        Map.Entry<Long, PriceLevel> above = levels.higherEntry(level.price);
+        level.lower = below == null ? null : below.getValue();
+        level.higher = above == null ? null : above.getValue();
+        if (level.lower != null) level.lower.higher = level;
+        if (level.higher != null) level.higher.lower = level;
+        levels.put(level.price, level);
+        if (bids ? level.higher == null : level.lower == null) best = level;
+    }
+
+    void remove(PriceLevel level) {
+        if (best == level) best = worse(level);
+        if (level.lower != null) level.lower.higher = level.higher;
+        if (level.higher != null) level.higher.lower = level.lower;
+        level.lower = level.higher = null;
+        levels.remove(level.price);
+    }
+}
+
+// Limit order book for one symbol with price-time priority. Not thread-safe on its own:
+// MatchingEngine holds the book's monitor around every call.
+class OrderBook {
+    final int symbolId;
+    final String symbol;
+    final BookSide bids = new BookSide(true);
+    final BookSide asks = new BookSide(false);
+    final Map<Long, Order> orders = new HashMap<>(); // resting orders by id
+    final Map<Long, OrderBook> restingIn;            // engine-wide order id -> book
+    final ArrayDeque<Order> freeOrders = new ArrayDeque<>();
+    final ArrayDeque<PriceLevel> freeLevels = new ArrayDeque<>();
+    final TradeHistory history;
+
+    OrderBook(int symbolId, String symbol, Map<Long, OrderBook> restingIn, TradeHistory history) {
+        this.symbolId = symbolId;
+        this.symbol = symbol;
+        this.restingIn = restingIn;
+        this.history = history;
+    }
+
+    Order acquire(long id, User owner, Side side, long price, int quantity) {
+        Order order = freeOrders.poll();
+        if (order == null) order = new Order();
+        order.id = id;
+        order.owner = owner;
+        order.side = side;
+        order.price = price;
+        order.quantity = quantity;
+        order.reservedCash = 0;
+        return order;
+    }
+
+    // Sets aside the owner's cash or shares for the order. A market buy reserves what the
+    // current asks would cost, or as much of that as the owner has. A limit buy whose cost does not
+    // fit in a long is more than anyone can afford, so it is refused like any other.
+    boolean reserve(Order order, boolean market) {
+        if (order.owner == null) return true;
+        if (order.side == Side.SELL) return order.owner.reserveShares(symbol, order.quantity);
+        if (market) {
+            long cost = costToBuy(order.quantity);
+            order.reservedCash = order.owner.reserveUpTo(cost);
+            return order.reservedCash > 0 || cost == 0;
+        }
+        if (order.quantity > Long.MAX_VALUE / order.price) return false;
+        long cost = Money.times(order.price, order.quantity);
+        if (order.owner.reserveCash(cost)) order.reservedCash = cost;
+        return order.reservedCash > 0;
+    }
+
+    // What buying quantity shares from the current asks would cost; Long.MAX_VALUE if that overflows
+    long costToBuy(int quantity) {
+        long cost = 0;
+        for (PriceLevel level = asks.best; level != null && quantity > 0; level = level.higher) {
+            for (Order order = level.head; order != null && quantity > 0; order = order.next) {
+                int filled = Math.min(quantity, order.quantity);
+                if (filled > (Long.MAX_VALUE - cost) / level.price) return Long.MAX_VALUE;
+                cost += Money.times(level.price, filled);
+                quantity -= filled;
+            }
+        }
+        return cost;
+    }
+
+    // Fills the taker against resting orders, best price first and oldest first within a price
+    void match(Order taker) {
+        BookSide opposite = taker.side == Side.BUY ? asks : bids;
+        PriceLevel level = opposite.best;
+        while (taker.quantity > 0 && level != null && crosses(taker, level.price)) {
+            PriceLevel worse = opposite.worse(level);
+            Order maker = level.head;
+            while (maker != null && taker.quantity > 0) {
+                int quantity = Math.min(taker.quantity, maker.quantity);
+                if (taker.side == Side.BUY) quantity = affordable(taker, level.price, quantity);
+                if (quantity == 0) return;
+                Order next = maker.next;
+                if (taker.side == Side.BUY) fill(taker, maker, level.price, quantity);
+                else fill(maker, taker, level.price, quantity);
+                if (maker.quantity == 0) close(maker);
+                maker = next;
+            }
+            level = worse;
+        }
+    }
+
+    static boolean crosses(Order taker, long price) {
+        return taker.side == Side.BUY ? price <= taker.price : price >= taker.price;
+    }
+
+    static int affordable(Order buy, long price, int quantity) {
+        if (buy.owner == null) return quantity;
+        return (int) Math.min(quantity, buy.reservedCash / price);
+    }
+
+    void fill(Order buy, Order sell, long price, int quantity) {
+        buy.quantity -= quantity;
+        sell.quantity -= quantity;
+        if (buy.owner != null) {
+            buy.reservedCash -= Money.times(price, quantity);
+            buy.owner.onBuyFill(symbol, quantity, price);
+        }
+        long now = System.currentTimeMillis();
+        history.trade(symbolId, now, Money.toDouble(price), quantity);
+        if (sell.owner != null) {
+            history.realized(sell.owner.name, now, Money.toDouble(sell.owner.onSellFill(symbol, quantity, price)));
+        }
+    }
+
+    void rest(Order order) {
+        BookSide side = order.side == Side.BUY ? bids : asks;
+        PriceLevel level = side.levels.get(order.price);
+        if (level == null) {
+            level = freeLevels.poll();
+            if (level == null) level = new PriceLevel();
+            level.price = order.price;
+            level.head = level.tail = null;
+            side.insert(level);
+        }
+        level.append(order);
+        orders.put(order.id, order);
+        restingIn.put(order.id, this);
+        if (order.owner != null) order.owner.orderRested(order.id);
+    }
+
+    // Takes a resting order off the book, returns what it had reserved and recycles it
+    void close(Order order) {
+        PriceLevel level = order.level;
+        level.remove(order);
+        if (level.head == null) {
+            (order.side == Side.BUY ? bids : asks).remove(level);
+            freeLevels.push(level);
+        }
+        orders.remove(order.id);
+        restingIn.remove(order.id);
+        finish(order);
+    }
+
+    // Returns an order's leftover reservation to its owner and recycles it
+    void finish(Order order) {
+        User owner = order.owner;
+        if (owner != null) {
+            if (order.side == Side.BUY && order.reservedCash > 0) owner.releaseCash(order.reservedCash);
+            if (order.side == Side.SELL && order.quantity > 0) owner.releaseShares(symbol, order.quantity);
+            owner.orderClosed(order.id);
+        }
+        recycle(order);
+    }
+
+    // Returns an order that holds no reservation to the pool
+    void recycle(Order order) {
+        order.owner = null;
+        freeOrders.push(order);
+    }
+}
+
+// Routes orders to per-symbol books; orders for different symbols never contend
+class MatchingEngine {
+    final Market market;
+    final OrderBook[] books;
+    final Map<Long, OrderBook> restingIn = new ConcurrentHashMap<>();
+    final AtomicLong nextOrderId = new AtomicLong(1);
+    final TradeHistory history;
+
+    MatchingEngine(Market market, TradeHistory history) {
+        this.market = market;
+        this.history = history;
+        books = new OrderBook[market.size];
+        for (int id = 0; id < market.size; id++) {
+            books[id] = new OrderBook(id, market.symbol(id), restingIn, history);
+        }
+    }
+
+    // Fills what it can right away and drops the rest.
+    // Returns the shares filled, or -1 if the quantity is not positive or the owner lacks the cash or
+    // shares to place it.
+    int submitMarket(User owner, int symbolId, Side side, int quantity) {
+        if (quantity <= 0) return -1;
+        OrderBook book = books[symbolId];
+        synchronized (book) {
+            Order order = book.acquire(nextOrderId.getAndIncrement(), owner, side,
+                    side == Side.BUY ? Long.MAX_VALUE : Long.MIN_VALUE, quantity);
+            if (!book.reserve(order, true)) {
+                book.recycle(order);
+                return -1;
+            }
+            book.match(order);
+            int filled = quantity - order.quantity;
+            book.finish(order);
+            return filled;
+        }
+    }
+
+    // Fills what crosses right away and rests the rest on the book.
+    // Returns the id of the resting order, 0 if it filled completely, or -1 if it could not be placed.
+    // Limit prices are in micro-dollars and are rounded to the nearest cent; quantity and the rounded
+    // price must both be positive.
+    long submitLimit(User owner, int symbolId, Side side, long limitPrice, int quantity) {
+        if (quantity <= 0 || Money.toCent(limitPrice) <= 0) return -1;
+        OrderBook book = books[symbolId];
+        synchronized (book) {
+            Order order = book.acquire(nextOrderId.getAndIncrement(), owner, side, Money.toCent(limitPrice),
+                    quantity);
+            if (!book.reserve(order, false)) {
+                book.recycle(order);
+                return -1;
+            }
+            book.match(order);
+            if (order.quantity == 0) {
+                book.finish(order);
+                return 0;
+            }
+            long id = order.id;
+            book.rest(order);
+            return id;
+        }
+    }
+
+    boolean cancel(User owner, long orderId) {
+        OrderBook book = restingIn.get(orderId);
+        if (book == null) return false;
+        synchronized (book) {
+            Order order = book.orders.get(orderId);
+            if (order == null || order.owner != owner) return false;
+            book.close(order);
+            return true;
+        }
+    }
+
+    void cancelAll(User owner) {
+        for (long orderId : owner.openOrders()) cancel(owner, orderId);
+    }
+}
+
+// House liquidity: on every tick, re-quotes a bid and an ask around the market price
+class MarketMaker implements PriceListener {
+    final MatchingEngine exchange;
+    final double spread; // fraction of the price between bid and ask
+    final int depth;     // shares quoted on each side
+    final long[] bidIds;
+    final long[] askIds;
+
+    MarketMaker(MatchingEngine exchange, double spread, int depth) {
+        this.exchange = exchange;
+        this.spread = spread;
+        this.depth = depth;
+        bidIds = new long[exchange.books.length];
+        askIds = new long[exchange.books.length];
+        for (int id = 0; id < bidIds.length; id++) quote(id, exchange.market.price(id));
+    }
+
+    void quote(int symbolId, long price) {
+        exchange.cancel(null, bidIds[symbolId]);
+        exchange.cancel(null, askIds[symbolId]);
+        bidIds[symbolId] = exchange.submitLimit(null, symbolId, Side.BUY, Math.round(price * (1 - spread / 2)), depth);
+        askIds[symbolId] = exchange.submitLimit(null, symbolId, Side.SELL, Math.round(price * (1 + spread / 2)), depth);
+    }
+
+    @Override
+    public void onPrice(int symbolId, long price, long sequence) {
+        quote(symbolId, price);
+    }
+}
+
+// Append-only column of longs in fixed-size chunks, so growing it never copies the data
+class LongColumn {
+    final int bits;
+    volatile long[][] chunks = new long[1][];
+
+    LongColumn(int bits) {
+        this.bits = bits;
+    }
+
+    long get(long i) {
+        return chunks[(int) (i >>> bits)][(int) (i & ((1 << bits) - 1))];
+    }
+
+    // Single writer; a reader may only look at indexes published to it afterwards
+    void set(long i, long value) {
+        chunk((int) (i >>> bits))[(int) (i & ((1 << bits) - 1))] = value;
+    }
+
+    long[] chunk(int c) {
+        long[][] all = chunks;
+        if (c < all.length && all[c] != null) return all[c];
+        if (c >= all.length) all = Arrays.copyOf(all, Math.max(c + 1, all.length * 2));
+        all[c] = new long[1 << bits];
+        chunks = all;
+        return all[c];
+    }
+}
+
+class DoubleColumn {
+    final int bits;
+    volatile double[][] chunks = new double[1][];
+
+    DoubleColumn(int bits) {
+        this.bits = bits;
+    }
+
+    double get(long i) {
+        return chunks[(int) (i >>> bits)][(int) (i & ((1 << bits) - 1))];
+    }
+
+    void set(long i, double value) {
+        chunk((int) (i >>> bits))[(int) (i & ((1 << bits) - 1))] = value;
+    }
+
+    double[] chunk(int c) {
+        double[][] all = chunks;
+        if (c < all.length && all[c] != null) return all[c];
+        if (c >= all.length) all = Arrays.copyOf(all, Math.max(c + 1, all.length * 2));
+        all[c] = new double[1 << bits];
+        chunks = all;
+        return all[c];
+    }
+}
+
+// Timestamped prices of one symbol, oldest first. Alongside the raw columns it keeps the high and low
+// of every block of 64, 64^2, 64^3 and 64^4 entries, so the high or low of any index range is found
+// from at most a few hundred values. One thread appends at a time; readers see entries once size covers them.
+class PriceSeries {
+    static final int CHUNK_BITS = 10;  // raw columns
+    static final int ROLLUP_BITS = 8;  // block highs and lows
+    static final int FANOUT_BITS = 6;
+    static final int LEVELS = 4;
+
+    final LongColumn times = new LongColumn(CHUNK_BITS);
+    final DoubleColumn prices = new DoubleColumn(CHUNK_BITS);
+    final DoubleColumn[] highs = new DoubleColumn[LEVELS];
+    final DoubleColumn[] lows = new DoubleColumn[LEVELS];
+    volatile long size;
+    long lastTime;
+
+    PriceSeries() {
+        for (int level = 0; level < LEVELS; level++) {
+            highs[level] = new DoubleColumn(ROLLUP_BITS);
+            lows[level] = new DoubleColumn(ROLLUP_BITS);
+        }
+    }
+
+    void append(long time, double price) {
+        long i = size;
+        lastTime = Math.max(time, lastTime); // keep timestamps ordered if the clock steps back
+        times.set(i, lastTime);
+        prices.set(i, price);
+        for (int level = 0, shift = FANOUT_BITS; level < LEVELS; level++, shift += FANOUT_BITS) {
+            long block = i >>> shift;
+            boolean first = (i & ((1L << shift) - 1)) == 0;
+            highs[level].set(block, first ? price : Math.max(highs[level].get(block), price));
+            lows[level].set(block, first ? price : Math.min(lows[level].get(block), price));
+        }
+        size = i + 1;
+    }
+
+    // First index below n whose time is at or after the given time, or n if there is none
+    long indexOf(long time, long n) {
+        long lo = 0, hi = n;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (times.get(mid) < time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Highest (or lowest) price over indexes [from, to): whole blocks come from the coarsest level
+    // that covers them and only the ragged ends are read one by one
+    double extreme(int level, long from, long to, boolean high) {
+        long first = (from + (1 << FANOUT_BITS) - 1) >>> FANOUT_BITS;
+        long last = to >>> FANOUT_BITS;
+        if (level == LEVELS || first >= last) return scan(level, from, to, high);
+        double edges = pick(scan(level, from, first << FANOUT_BITS, high), scan(level, last << FANOUT_BITS, to, high), high);
+        return pick(edges, extreme(level + 1, first, last, high), high);
+    }
+
+    double scan(int level, long from, long to, boolean high) {
+        DoubleColumn column = level == 0 ? prices : high ? highs[level - 1] : lows[level - 1];
+        double best = high ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        for (long i = from; i < to; i++) best = pick(best, column.get(i), high);
+        return best;
+    }
+
+    static double pick(double a, double b, boolean high) {
+        return high ? Math.max(a, b) : Math.min(a, b);
+    }
+}
+
+// Fills of one symbol. Running totals of volume and notional make the volume and VWAP of any range
+// a difference of two entries.
+class TradeSeries extends PriceSeries {
+    final LongColumn volumes = new LongColumn(CHUNK_BITS);     // total shares up to and including each fill
+    final DoubleColumn notionals = new DoubleColumn(CHUNK_BITS); // total price * shares likewise
+    long volume;
+    double notional;
+
+    void append(long time, double price, int quantity) {
+        volume += quantity;
+        notional += price * quantity;
+        volumes.set(size, volume);
+        notionals.set(size, notional);
+        append(time, price);
+    }
+
+    long volume(long from, long to) {
+        return to == 0 ? 0 : volumes.get(to - 1) - (from == 0 ? 0 : volumes.get(from - 1));
+    }
+
+    double notional(long from, long to) {
+        return to == 0 ? 0 : notionals.get(to - 1) - (from == 0 ? 0 : notionals.get(from - 1));
+    }
+}
+
+// Realized profit of one account, as a running total at each sale
+class PnlSeries {
+    final LongColumn times = new LongColumn(8);
+    final DoubleColumn totals = new DoubleColumn(8);
+    volatile long size;
+    double total;
+    long lastTime;
+
+    // Sales of different symbols arrive from different order books at once
+    synchronized void append(long time, double pnl) {
+        total += pnl;
+        lastTime = Math.max(time, lastTime);
+        times.set(size, lastTime);
+        totals.set(size, total);
+        size = size + 1;
+    }
+
+    double between(long from, long to) {
+        long n = size;
+        long lo = indexOf(from, n), hi = indexOf(to, n);
+        return hi == 0 ? 0 : totals.get(hi - 1) - (lo == 0 ? 0 : totals.get(lo - 1));
+    }
+
+    long indexOf(long time, long n) {
+        long lo = 0, hi = n;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (times.get(mid) < time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
+
+// One OHLC bar: prices from market ticks, volume and VWAP from fills
+class Bar {
+    final long start;
+    final double open, high, low, close;
+    final long volume;
+    final double vwap; // NaN when nothing traded
+
+    Bar(long start, double open, double high, double low, double close, long volume, double vwap) {
+        this.start = start;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+        this.vwap = vwap;
+    }
+}
+
+// Market history kept in memory: every tick and fill per symbol and every account's realized profit.
+// Time windows are half-open [from, to) in epoch milliseconds.
+class TradeHistory implements PriceListener {
+    final PriceSeries[] ticks;
+    final TradeSeries[] trades;
+    final ConcurrentMap<String, PnlSeries> realized = new ConcurrentHashMap<>();
+
+    TradeHistory(Market market) {
+        ticks = new PriceSeries[market.size];
+        trades = new TradeSeries[market.size];
+        for (int id = 0; id < market.size; id++) {
+            ticks[id] = new PriceSeries();
+            trades[id] = new TradeSeries();
+            ticks[id].append(System.currentTimeMillis(), Money.toDouble(market.price(id)));
+        }
+    }
+
+    @Override
+    public void onPrice(int symbolId, long price, long sequence) {
+        ticks[symbolId].append(System.currentTimeMillis(), Money.toDouble(price));
+    }
+
+    // Called under the symbol's order book lock, which keeps one writer per trade series
+    void trade(int symbolId, long time, double price, int quantity) {
+        trades[symbolId].append(time, price, quantity);
+    }
+
+    void realized(String account, long time, double pnl) {
+        realized.computeIfAbsent(account, a -> new PnlSeries()).append(time, pnl);
+    }
+
+    // Null if no tick falls in the window
+    Bar bar(int symbolId, long from, long to) {
+        PriceSeries series = ticks[symbolId];
+        long n = series.size;
+        long i = series.indexOf(from, n), j = series.indexOf(to, n);
+        if (i == j) return null;
+        TradeSeries fills = trades[symbolId];
+        long m = fills.size;
+        long a = fills.indexOf(from, m), b = fills.indexOf(to, m);
+        long volume = fills.volume(a, b);
+        return new Bar(from, series.prices.get(i), series.extreme(0, i, j, true), series.extreme(0, i, j, false),
+                series.prices.get(j - 1), volume, volume == 0 ? Double.NaN : fills.notional(a, b) / volume);
+    }
+
+    // Consecutive bars of the given width; windows without ticks are left out
+    List<Bar> bars(int symbolId, long from, long to, long width) {
+        List<Bar> bars = new ArrayList<>();
+        for (long start = from; start < to; start += width) {
+            Bar bar = bar(symbolId, start, Math.min(start + width, to));
+            if (bar != null) bars.add(bar);
+        }
+        return bars;
+    }
+
+    double vwap(int symbolId, long from, long to) {
+        TradeSeries fills = trades[symbolId];
+        long n = fills.size;
+        long a = fills.indexOf(from, n), b = fills.indexOf(to, n);
+        long volume = fills.volume(a, b);
+        return volume == 0 ? Double.NaN : fills.notional(a, b) / volume;
+    }
+
+    double realizedPnl(String account, long from, long to) {
+        PnlSeries series = realized.get(account);
+        return series == null ? 0 : series.between(from, to);
+    }
+
+    void printBars(Market market, int symbolId, long from, long to, long width) {
+        System.out.println("\n " + market.symbol(symbolId) + " history:");
+        for (Bar bar : bars(symbolId, from, to, width)) {
+            System.out.printf("%tT | O %.2f H %.2f L %.2f C %.2f | Vol %d | VWAP %s\n", bar.start, bar.open,
+                    bar.high, bar.low, bar.close, bar.volume,
+                    Double.isNaN(bar.vwap) ? "-" : String.format("%.2f", bar.vwap));
+        }
+    }
+}
+
+class PortfolioEntry {
+    final User owner;
+    final int symbolId; // -1 for a saved holding whose symbol is no longer listed
+    int quantity;
+    long cost;    // total paid for the shares held, so the average never drifts
+    int reserved; // shares committed to open sell orders
+    long mark;    // price the holding is currently valued at
+
+    PortfolioEntry(User owner, int symbolId, int quantity, long cost) {
+        this.owner = owner;
+        this.symbolId = symbolId;
+        this.quantity = quantity;
+        this.cost = cost;
+    }
+
+    long avgPrice() {
+        return quantity == 0 ? 0 : (cost + quantity / 2) / quantity;
+    }
+}
+
+// Keeps every account's market value current as prices move. Holdings are indexed by symbol,
+// so a tick only touches the accounts that hold the symbol that moved.
+class PortfolioValuation implements PriceListener {
+    final Market market;
+    final List<Set<PortfolioEntry>> holders = new ArrayList<>();
+    final long[] marks; // last price applied per symbol; written by the tick subscriber only
+
+    PortfolioValuation(Market market) {
+        this.market = market;
+        marks = new long[market.size];
+        for (int id = 0; id < market.size; id++) {
+            holders.add(ConcurrentHashMap.newKeySet());
+            marks[id] = market.price(id);
+        }
+    }
+
+    // Called under the owner's monitor when a holding is opened; returns the price to value it at
+    long track(PortfolioEntry entry) {
+        if (entry.symbolId < 0) return entry.avgPrice();
+        holders.get(entry.symbolId).add(entry);
+        return (long) Market.PRICE.getAcquire(marks, entry.symbolId);
+    }
+
+    void untrack(PortfolioEntry entry) {
+        if (entry.symbolId >= 0) holders.get(entry.symbolId).remove(entry);
+    }
+
+    @Override
+    public void onPrice(int symbolId, long price, long sequence) {
+        Market.PRICE.setRelease(marks, symbolId, price);
+        for (PortfolioEntry entry : holders.get(symbolId)) entry.owner.remark(entry, price);
+    }
+}
+
+// A trading account. Its monitor serializes every change to the account, so concurrent orders
+// for one account are applied one at a time and can never overdraw cash or oversell shares.
+class User {
+    String name;
+    long balance; // micro-dollars, as are all amounts below
+    Map<String, PortfolioEntry> portfolio = new HashMap<>();
+    final PortfolioValuation valuation;
+    final AccountStore store;
+    long marketValue;    // sum of quantity * mark over all holdings, kept up to date by fills and ticks
+    long costBasis;      // sum of cost over all holdings
+    long reservedCash;   // taken out of balance for open buy orders
+    long seq;            // fills journaled for this account
+    boolean quiet;       // simulated accounts do not print their fills
+
+    User(String name, PortfolioValuation valuation, AccountStore store) {
+        this.name = name;
+        this.balance = Money.of(10000.0);
+        this.valuation = valuation;
+        this.store = store;
+    }
+
+    Set<Long> openOrders = new HashSet<>();
+
+    void buyStock(String symbol, int quantity, MatchingEngine exchange) {
+        if (quantity <= 0) {
+            System.out.println(" Quantity must be positive.");
+            return;
+        }
+        int id = exchange.market.idOf(symbol);
+        if (id < 0) {
+            System.out.println("Stock not found.");
+            return;
+        }
+
+        int filled = exchange.submitMarket(this, id, Side.BUY, quantity);
+        if (filled < 0) {
+            System.out.println(" Insufficient balance.");
+        } else if (filled < quantity) {
+            System.out.printf(" Only %d of %d shares could be bought.\n", filled, quantity);
+        }
+    }
+
+    void sellStock(String symbol, int quantity, MatchingEngine exchange) {
+        if (quantity <= 0) {
+            System.out.println(" Quantity must be positive.");
+            return;
+        }
+        synchronized (this) {
+            if (!portfolio.containsKey(symbol)) {
+                System.out.println(" You don't own this stock.");
+                return;
+            }
+        }
+
+        int filled = exchange.submitMarket(this, exchange.market.idOf(symbol), Side.SELL, quantity);
+        if (filled < 0) {
+            System.out.println("Not enough shares to sell.");
+        } else if (filled < quantity) {
+            System.out.printf(" Only %d of %d shares could be sold.\n", filled, quantity);
+        }
+    }
+
+    void placeLimitOrder(String symbol, Side side, int quantity, double price, MatchingEngine exchange) {
+        if (quantity <= 0) {
+            System.out.println(" Quantity must be positive.");
+            return;
+        }
+        if (Money.toCent(Money.of(price)) <= 0) {
+            System.out.println(" Price must be at least $0.01.");
+            return;
+        }
+        int id = exchange.market.idOf(symbol);
+        if (id < 0) {
+            System.out.println("Stock not found.");
+            return;
+        }
+
+        long orderId = exchange.submitLimit(this, id, side, Money.of(price), quantity);
+        if (orderId < 0) {
+            System.out.println(side == Side.BUY ? " Insufficient balance." : "Not enough shares to sell.");
+        } else if (orderId == 0) {
+            System.out.println(" Order filled.");
+        } else {
+            System.out.printf(" Limit order #%d placed: %s %d %s at $%.2f\n", orderId, side, quantity, symbol, price);
+        }
+    }
+
+    void cancelOrder(long orderId, MatchingEngine exchange) {
+        System.out.println(exchange.cancel(this, orderId) ? " Order cancelled." : " Order not found.");
+    }
+
+    // Called by the matching engine while it holds the order book's lock
+    synchronized boolean reserveCash(long amount) {
+        if (amount <= 0 || balance < amount) return false;
+        balance -= amount;
+        reservedCash += amount;
+        return true;
+    }
+
+    synchronized long reserveUpTo(long amount) {
+        if (amount <= 0) return 0;
+        long cash = Math.min(amount, balance);
+        balance -= cash;
+        reservedCash += cash;
+        return cash;
+    }
+
+    synchronized void releaseCash(long amount) {
+        balance += amount;
+        reservedCash -= amount;
+    }
+
+    synchronized boolean reserveShares(String symbol, int quantity) {
+        PortfolioEntry entry = portfolio.get(symbol);
+        if (quantity <= 0 || entry == null || entry.quantity - entry.reserved < quantity) return false;
+        entry.reserved += quantity;
+        return true;
+    }
+
+    synchronized void releaseShares(String symbol, int quantity) {
+        portfolio.get(symbol).reserved -= quantity;
+    }
+
+    synchronized void onBuyFill(String symbol, int quantity, long price) {
+        long amount = Money.times(price, quantity);
+        reservedCash -= amount;
+        addShares(symbol, quantity, amount);
+        journal(Side.BUY, symbol, quantity, price);
+        if (!quiet) System.out.printf(" Bought %d shares of %s at $%.2f\n", quantity, symbol, Money.toDouble(price));
+    }
+
+    // Returns the profit realized by the sale
+    synchronized long onSellFill(String symbol, int quantity, long price) {
+        long proceeds = Money.times(price, quantity);
+        balance += proceeds;
+        portfolio.get(symbol).reserved -= quantity;
+        long pnl = proceeds - removeShares(symbol, quantity);
+        journal(Side.SELL, symbol, quantity, price);
+        if (!quiet) System.out.printf(" Sold %d shares of %s at $%.2f\n", quantity, symbol, Money.toDouble(price));
+        return pnl;
+    }
+
+    void addShares(String symbol, int quantity, long cost) {
+        PortfolioEntry entry = portfolio.get(symbol);
+        if (entry != null) {
+            entry.quantity += quantity;
+            entry.cost += cost;
+            marketValue += entry.mark * quantity;
+            costBasis += cost;
+        } else {
+            open(symbol, quantity, cost);
+        }
+    }
+
+    // Returns the cost of the shares removed: their share of the holding's total cost
+    long removeShares(String symbol, int quantity) {
+        PortfolioEntry entry = portfolio.get(symbol);
+        long cost = quantity == entry.quantity ? entry.cost : Money.part(entry.cost, quantity, entry.quantity);
+        entry.quantity -= quantity;
+        entry.cost -= cost;
+        marketValue -= entry.mark * quantity;
+        costBasis -= cost;
+        if (entry.quantity == 0) {
+            portfolio.remove(symbol);
+            valuation.untrack(entry);
+        }
+        return cost;
+    }
+
+    // Records a fill in the account store, which forces it to disk with the next batch.
+    // Backtest accounts have no store.
+    void journal(Side side, String symbol, int quantity, long price) {
+        if (store == null) return;
+        try {
+            store.trade(name, ++seq, side, symbol, quantity, price);
+        } catch (IOException e) {
+            System.out.println(" Error saving trade: " + e.getMessage());
+        }
+    }
+
+    // Recovery: resets the account to the cash and fill count recorded in a snapshot
+    synchronized void restore(long seq, long cash) {
+        for (PortfolioEntry entry : portfolio.values()) valuation.untrack(entry);
+        portfolio.clear();
+        marketValue = costBasis = 0;
+        balance = cash;
+        this.seq = seq;
+    }
+
+    // Recovery: applies a journaled fill unless the snapshot already reflects it
+    synchronized void replayFill(Side side, String symbol, int quantity, long price, long seq) {
+        if (seq <= this.seq) return;
+        this.seq = seq;
+        long amount = Money.times(price, quantity);
+        if (side == Side.BUY) {
+            balance -= amount;
+            addShares(symbol, quantity, amount);
+        } else {
+            balance += amount;
+            removeShares(symbol, quantity);
+        }
+    }
+
+    // Adds a new holding to the account and to the valuation index
+    void open(String symbol, int quantity, long cost) {
+        PortfolioEntry entry = new PortfolioEntry(this, valuation.market.idOf(symbol), quantity, cost);
+        entry.mark = valuation.track(entry);
+        portfolio.put(symbol, entry);
+        marketValue += entry.mark * quantity;
+        costBasis += cost;
+    }
+
+    // Revalues one holding at a new price; called by the valuation for every tick of its symbol
+    synchronized void remark(PortfolioEntry entry, long price) {
+        marketValue += (price - entry.mark) * entry.quantity;
+        entry.mark = price;
+    }
+
+    synchronized long totalValue() {
+        return balance + marketValue;
+    }
+
+    synchronized long unrealizedPnl() {
+        return marketValue - costBasis;
+    }
+
+    synchronized void orderRested(long orderId) {
+        openOrders.add(orderId);
+    }
+
+    synchronized void orderClosed(long orderId) {
+        openOrders.remove(orderId);
+    }
+
+    synchronized List<Long> openOrders() {
+        return new ArrayList<>(openOrders);
+    }
+
+    // Totals are maintained as fills and ticks arrive, so printing them costs nothing extra
+    synchronized void viewPortfolio() {
+        System.out.println("\n Portfolio Overview:");
+        for (String symbol : portfolio.keySet()) {
+            PortfolioEntry entry = portfolio.get(symbol);
+            System.out.printf("%s: %d shares | Avg Buy: $%.2f | Current: $%.2f | Value: $%.2f\n",
+symbol, entry.quantity, Money.toDouble(entry.avgPrice()), Money.toDouble(entry.mark),
+                    Money.toDouble(entry.quantity * entry.mark));
+        }
+        if (!openOrders.isEmpty()) System.out.println(" Open orders: " + openOrders);
+        System.out.printf("\n Cash Balance: $%.2f\n", Money.toDouble(balance));
+        System.out.printf(" Unrealized P&L: $%.2f\n", Money.toDouble(marketValue - costBasis));
+        System.out.printf(" Total Portfolio Value: $%.2f\n", Money.toDouble(marketValue + balance));
+    }
+}
+
+// Every account in one store: a binary snapshot of all accounts plus numbered journals of the fills
+// made since. A snapshot starts a new journal, so trading carries on while it is written; each account
+// counts its fills, and recovery skips the ones its snapshot already reflects.
+// Journal record: int payload length, int CRC32 of payload, payload (byte type, long account fill count,
+// account name, symbol, int quantity, long price in micro-dollars). Strings are an unsigned short length
+// and UTF-8 bytes. Version 1 records carried the side (0 or 1) as type and a double price.
+class AccountStore implements Closeable {
+    static final int MAGIC = 0x53545041; // "STPA"
+    static final short VERSION = 2;      // version 1 stored cash and average prices as doubles
+    static final int HEADER_SIZE = 20;
+    static final byte BUY = 2;
+    static final byte SELL = 3;
+
+    final Path dir;
+    final Path snapshotFile;
+    final ByteBuffer pending = ByteBuffer.allocate(256 * 1024);
+    final CRC32 crc = new CRC32();
+    final Object snapshotLock = new Object();
+    final ScheduledExecutorService flusher;
+    FileChannel journal;
+    long generation; // number of the journal being appended to
+    int pendingRecords;
+
+    // Fills from all accounts are forced to disk together, at most flushMillis after they are made
+    AccountStore(Path dir, long flushMillis) {
+        this.dir = dir;
+        this.snapshotFile = dir.resolve("accounts.snap");
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create data directory " + dir, e);
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "account-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleAtFixedRate(() -> {
+            try {
+                flush();
+            } catch (IOException e) {
+                System.out.println("Error flushing trades: " + e.getMessage());
+            }
+        }, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+    }
+
+    Path journalPath(long generation) {
+        return dir.resolve("accounts-" + generation + ".journal");
+    }
+
+    List<Long> journalGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "accounts-*.journal")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                generations.add(Long.parseLong(name.substring(9, name.length() - 8)));
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    // Rebuilds every saved account through the factory: the snapshot first, then the journaled fills
+    // it does not cover. Converts the old per-user text files on first run.
+    synchronized void load(Function<String, User> accounts) throws IOException {
+        if (!Files.exists(snapshotFile)) migrate(accounts);
+        long first = Files.exists(snapshotFile) ? readSnapshot(accounts) : 0;
+        generation = first;
+        for (long gen : journalGenerations()) {
+            if (gen < first) {
+                Files.delete(journalPath(gen)); // already in the snapshot; left behind by a crash
+            } else {
+                replay(journalPath(gen), accounts);
+                generation = gen;
+            }
+        }
+        journal = FileChannel.open(journalPath(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        journal.position(journal.size());
+    }
+
+    // Applies every intact record and cuts off a torn tail
+    void replay(Path path, Function<String, User> accounts) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = ByteBuffer.allocate((int) channel.size());
+            channel.read(buf, 0);
+            buf.flip();
+            int valid = 0;
+            while (buf.remaining() >= 8) {
+                int length = buf.getInt();
+                int checksum = buf.getInt();
+                if (length <= 0 || length > buf.remaining()) break;
+                ByteBuffer payload = buf.slice().limit(length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) break;
+                byte type = payload.get();
+                long seq = payload.getLong();
+                User user = accounts.apply(getString(payload));
+                String symbol = getString(payload);
+                int quantity = payload.getInt();
+                Side side = type == BUY || type == Side.BUY.ordinal() ? Side.BUY : Side.SELL;
+                long price = type >= BUY ? payload.getLong() : Money.of(payload.getDouble());
+                user.replayFill(side, symbol, quantity, price, seq);
+                buf.position(buf.position() + length);
+                valid = buf.position();
+            }
+            channel.truncate(valid);
+        }
+    }
+
+    synchronized void trade(String name, long seq, Side side, String symbol, int quantity, long price)
+            throws IOException {
+        byte[] account = bytes(name);
+        byte[] stock = bytes(symbol);
+        int length = 1 + 8 + 2 + account.length + 2 + stock.length + 4 + 8;
+        if (pending.remaining() < 8 + length) flushPending();
+        int start = pending.position();
+        pending.putInt(length).putInt(0).put(side == Side.BUY ? BUY : SELL).putLong(seq)
+                .putShort((short) account.length).put(account)
+                .putShort((short) stock.length).put(stock)
+                .putInt(quantity)
+                .putLong(price);
+        crc.reset();
+        crc.update(pending.duplicate().position(start + 8).limit(pending.position()));
+        pending.putInt(start + 4, (int) crc.getValue());
+        pendingRecords++;
+    }
+
+    synchronized void flush() throws IOException {
+        if (pendingRecords == 0) return;
+        flushPending();
+        journal.force(false);
+    }
+
+    private void flushPending() throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) journal.write(pending);
+        pending.clear();
+        pendingRecords = 0;
+    }
+
+    // Writes every account to a new snapshot, swaps it in and deletes the journals it covers
+    void snapshot(Collection<User> users) throws IOException {
+        synchronized (snapshotLock) {
+            long first;
+            synchronized (this) {
+                flush();
+                journal.close();
+                first = ++generation;
+                journal = FileChannel.open(journalPath(first), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            write(snapshotFile, new ArrayList<>(users), first);
+            for (long gen : journalGenerations()) {
+                if (gen < first) Files.deleteIfExists(journalPath(gen));
+            }
+        }
+    }
+
+    // Layout: header (int magic, short version, short unused, long first journal not covered, int account count),
+    // then per account: name, long fill count, long cash, int holding count,
+    // and per holding: symbol, int quantity, long cost. Amounts are in micro-dollars.
+    static void write(Path path, List<User> users, long firstJournal) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            out.writeLong(firstJournal);
+            out.writeInt(users.size());
+            for (User user : users) {
+                synchronized (user) {
+                    writeString(out, user.name);
+                    out.writeLong(user.seq);
+                    out.writeLong(user.balance + user.reservedCash); // open orders do not survive a restart
+                    out.writeInt(user.portfolio.size());
+                    for (Map.Entry<String, PortfolioEntry> e : user.portfolio.entrySet()) {
+                        writeString(out, e.getKey());
+                        out.writeInt(e.getValue().quantity);
+                        out.writeLong(e.getValue().cost);
+                    }
+                }
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns the first journal the snapshot does not cover
+    long readSnapshot(Function<String, User> accounts) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.remaining() < HEADER_SIZE || buf.getInt() != MAGIC) {
+                throw new IOException("Not an account snapshot: " + snapshotFile);
+            }
+            short version = buf.getShort();
+            if (version != VERSION && version != 1) throw new IOException("Unsupported snapshot version " + version);
+            buf.getShort();
+            long first = buf.getLong();
+            int count = buf.getInt();
+            for (int i = 0; i < count; i++) {
+                User user = accounts.apply(getString(buf));
+                synchronized (user) {
+                    long seq = buf.getLong();
+                    user.restore(seq, version == 1 ? Money.of(buf.getDouble()) : buf.getLong());
+                    for (int holdings = buf.getInt(); holdings > 0; holdings--) {
+                        String symbol = getString(buf);
+                        int quantity = buf.getInt();
+                        user.open(symbol, quantity,
+                                version == 1 ? Money.times(Money.of(buf.getDouble()), quantity) : buf.getLong());
+                    }
+                }
+            }
+            return first;
+        }
+    }
+
+    // One-time conversion of the old <name>_portfolio.txt files into the first snapshot
+    void migrate(Function<String, User> accounts) throws IOException {
+        List<Path> legacy = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*_portfolio.txt")) {
+            for (Path file : files) legacy.add(file);
+        }
+        if (legacy.isEmpty()) return;
+        List<User> migrated = new ArrayList<>();
+        for (Path file : legacy) {
+            String fileName = file.getFileName().toString();
+            User user = accounts.apply(fileName.substring(0, fileName.length() - "_portfolio.txt".length()));
+            List<String> lines = Files.readAllLines(file);
+            synchronized (user) {
+                user.restore(0, Money.of(Double.parseDouble(lines.get(0))));
+                for (String line : lines.subList(1, lines.size())) {
+                    if (line.isBlank()) continue;
+                    String[] parts = line.split(",");
+                    int quantity = Integer.parseInt(parts[1]);
+                    user.open(parts[0], quantity, Money.times(Money.of(Double.parseDouble(parts[2])), quantity));
+                }
+            }
+            migrated.add(user);
+        }
+        write(snapshotFile, migrated, 0);
+        for (Path file : legacy) {
+            Files.move(file, file.resolveSibling(file.getFileName() + ".migrated"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        System.out.println("Migrated " + migrated.size() + " portfolios from " + dir);
+    }
+
+    static byte[] bytes(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IOException("Name too long");
+        return bytes;
+    }
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = bytes(s);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    static String getString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flusher.shutdown();
+        flush();
+        journal.close();
+    }
+}
+
+// Accounts by name, all restored from the account store when the registry is created
+class UserRegistry {
+    final ConcurrentMap<String, User> users = new ConcurrentHashMap<>();
+    final PortfolioValuation valuation;
+    final AccountStore store;
+
+    UserRegistry(PortfolioValuation valuation, AccountStore store) {
+        this.valuation = valuation;
+        this.store = store;
+        try {
+            store.load(this::get);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load accounts", e);
+        }
+    }
+
+    User get(String name) {
+        return users.computeIfAbsent(name, n -> new User(n, valuation, store));
+    }
+
+    boolean exists(String name) {
+        return users.containsKey(name);
+    }
+
+    // Writes all accounts to one snapshot file
+    void save() throws IOException {
+        store.snapshot(users.values());
+    }
+}
+
+// Serves many users at once: orders run on a worker pool, each against the account's own monitor
+// and the symbol's own book, so unrelated accounts and symbols proceed in parallel
+class TradingService {
+    final MatchingEngine exchange;
+    final UserRegistry users;
+    final ExecutorService workers;
+
+    TradingService(MatchingEngine exchange, UserRegistry users, int threads) {
+        this.exchange = exchange;
+        this.users = users;
+        this.workers = Executors.newFixedThreadPool(threads);
+    }
+
+    // Completes with the shares filled, or -1 if the account lacked the cash or shares.
+    // Fails with IllegalArgumentException for an unknown symbol or a quantity that is not positive.
+    CompletableFuture<Integer> submitMarket(String userName, String symbol, Side side, int quantity) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+            int id = exchange.market.idOf(symbol);
+            if (id < 0) throw new IllegalArgumentException("Unknown symbol: " + symbol);
+            return exchange.submitMarket(users.get(userName), id, side, quantity);
+        }, workers);
+    }
+
+    // Completes with the resting order id, 0 if it filled completely, or -1 if it could not be placed.
+    // The price is in micro-dollars. Fails with IllegalArgumentException for an unknown symbol, a
+    // quantity that is not positive, or a price under one cent.
+    CompletableFuture<Long> submitLimit(String userName, String symbol, Side side, long price, int quantity) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+            if (Money.toCent(price) <= 0) throw new IllegalArgumentException("Price must be at least one cent: " + price);
+            int id = exchange.market.idOf(symbol);
+            if (id < 0) throw new IllegalArgumentException("Unknown symbol: " + symbol);
+            return exchange.submitLimit(users.get(userName), id, side, price, quantity);
+        }, workers);
+    }
+
+    CompletableFuture<Boolean> cancel(String userName, long orderId) {
+        return CompletableFuture.supplyAsync(() -> exchange.cancel(users.get(userName), orderId), workers);
+    }
+
+    void shutdown() {
+        workers.shutdown();
+    }
+}
+
+// A scripted trader for backtests, called once per step with the latest price of its symbol
+interface Strategy {
+    void step(User trader, int symbolId, long price, MatchingEngine exchange);
+}
+
+// Trades at random: now and then a market buy or sell of a few shares
+class RandomTrader implements Strategy {
+    final SplittableRandom random;
+
+    RandomTrader(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public void step(User trader, int symbolId, long price, MatchingEngine exchange) {
+        if (random.nextInt(10) != 0) return;
+        exchange.submitMarket(trader, symbolId, random.nextBoolean() ? Side.BUY : Side.SELL, 1 + random.nextInt(10));
+    }
+}
+
+// Buys when the price breaks above its moving average and sells when it falls below
+class MomentumTrader implements Strategy {
+    double average = Double.NaN;
+
+    @Override
+    public void step(User trader, int symbolId, long price, MatchingEngine exchange) {
+        if (Double.isNaN(average)) average = price;
+        if (price > average * 1.002) exchange.submitMarket(trader, symbolId, Side.BUY, 5);
+        else if (price < average * 0.998) exchange.submitMarket(trader, symbolId, Side.SELL, 5);
+        average += (price - average) * 0.1;
+    }
+}
+
+// Keeps a resting bid and ask a little away from the price, re-placing them every few steps
+class MeanReversionTrader implements Strategy {
+    final double band;
+    final int every;
+    long bidId, askId;
+    int steps;
+
+    MeanReversionTrader(double band, int every) {
+        this.band = band;
+        this.every = every;
+    }
+
+    @Override
+    public void step(User trader, int symbolId, long price, MatchingEngine exchange) {
+        if (steps++ % every != 0) return;
+        exchange.cancel(trader, bidId);
+        exchange.cancel(trader, askId);
+        bidId = exchange.submitLimit(trader, symbolId, Side.BUY, Math.round(price * (1 - band)), 3);
+        askId = exchange.submitLimit(trader, symbolId, Side.SELL, Math.round(price * (1 + band)), 3);
+    }
+}
+
+// Headless, reproducible simulation: seeded price walks and scripted traders drive the real matching,
+// valuation and history path. Each trader sticks to one symbol, so symbols evolve independently;
+// they are split into shards that run in parallel, and a seed gives bit-identical results on any
+// number of threads.
+class Backtest {
+    final long seed;
+    final int steps;
+    final Market market;
+    final TradeHistory history;
+    final MatchingEngine exchange;
+    final PortfolioValuation valuation;
+    final MarketMaker maker;
+    final User[][] traders;        // by symbol id
+    final Strategy[][] strategies; // parallel to traders
+
+    Backtest(long seed, int symbols, int steps) {
+        this.seed = seed;
+        this.steps = steps;
+        market = new Market(seed);
+        SplittableRandom setup = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        for (int id = 0; id < symbols; id++) market.addSymbol(String.format("SYM%04d", id), 10 + setup.nextInt(990));
+        history = new TradeHistory(market);
+        exchange = new MatchingEngine(market, history);
+        valuation = new PortfolioValuation(market);
+        maker = new MarketMaker(exchange, 0.001, 1000);
+        traders = new User[symbols][];
+        strategies = new Strategy[symbols][];
+        for (int id = 0; id < symbols; id++) {
+            strategies[id] = new Strategy[] {new RandomTrader(setup.split()), new MomentumTrader(),
+                    new MeanReversionTrader(0.005, 10)};
+            traders[id] = new User[strategies[id].length];
+            for (int k = 0; k < traders[id].length; k++) {
+                traders[id][k] = new User(market.symbol(id) + "-" + k, valuation, null);
+                traders[id][k].quiet = true;
+                traders[id][k].balance = Money.of(1_000_000);
+            }
+        }
+    }
+
+    // Runs every step for symbols [from, to)
+    void runShard(int from, int to) {
+        for (long step = 0; step < steps; step++) {
+            for (int id = from; id < to; id++) {
+                long price = market.updatePrice(id);
+                valuation.onPrice(id, price, step);
+                maker.quote(id, price);
+                for (int k = 0; k < traders[id].length; k++) {
+                    strategies[id][k].step(traders[id][k], id, price, exchange);
+                }
+            }
+        }
+    }
+
+    // Returns the elapsed nanoseconds
+    long run(int threads) throws InterruptedException, ExecutionException {
+        int symbols = market.size;
+        int shards = Math.min(symbols, threads * 4);
+        List<Callable<Void>> work = new ArrayList<>();
+        for (int s = 0; s < shards; s++) {
+            int from = (int) ((long) symbols * s / shards), to = (int) ((long) symbols * (s + 1) / shards);
+            work.add(() -> {
+                runShard(from, to);
+                return null;
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            for (Future<Void> done : pool.invokeAll(work)) done.get();
+        } finally {
+            pool.shutdown();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // Hash of every final price and account in id order; equal fingerprints mean identical runs
+    long fingerprint() {
+        long hash = seed;
+        for (int id = 0; id < market.size; id++) {
+            hash = hash * 31 + market.price(id);
+            hash = hash * 31 + history.trades[id].size;
+            for (User trader : traders[id]) {
+                synchronized (trader) {
+                    hash = hash * 31 + trader.balance;
+                    hash = hash * 31 + trader.reservedCash;
+                    for (PortfolioEntry entry : new TreeMap<>(trader.portfolio).values()) {
+                        hash = hash * 31 + entry.quantity;
+                        hash = hash * 31 + entry.cost;
+                    }
+                }
+            }
+        }
+        return hash;
+    }
+
+    // Usage: --backtest [seed] [symbols] [steps] [threads]
+    static void main(String[] args) throws InterruptedException, ExecutionException {
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        int symbols = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int steps = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        Backtest backtest = new Backtest(seed, symbols, steps);
+        long elapsed = backtest.run(threads);
+        long fills = 0, volume = 0;
+        for (TradeSeries trades : backtest.history.trades) {
+            fills += trades.size;
+            volume += trades.volume;
+        }
+        System.out.printf("Backtest seed=%d symbols=%d steps=%d threads=%d\n", seed, symbols, steps, threads);
+        System.out.printf(" Fills: %d | Volume: %d shares\n", fills, volume);
+        System.out.printf(" Elapsed: %d ms (%.0f symbol-steps/s)\n", elapsed / 1_000_000,
+                (double) symbols * steps / (elapsed / 1e9));
+        System.out.printf(" Fingerprint: %016x\n", backtest.fingerprint());
+    }
+}
+
+public class StockTradingPlatform {
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--backtest")) {
+            try {
+                Backtest.main(args);
+            } catch (InterruptedException | ExecutionException e) {
+                System.out.println("Backtest failed: " + e);
+            }
+            return;
+        }
+        Scanner sc = new Scanner(System.in);
+        Market market = new Market();
+        MarketDataEngine engine = new MarketDataEngine(market);
+        TradeHistory history = new TradeHistory(market);
+        MatchingEngine exchange = new MatchingEngine(market, history);
+        PortfolioValuation valuation = new PortfolioValuation(market);
+        AccountStore store = new AccountStore(Paths.get("."), 50);
+        UserRegistry users = new UserRegistry(valuation, store);
+        engine.subscribe(new MarketMaker(exchange, 0.001, 1000));
+        engine.subscribe(valuation);
+        engine.subscribe(history);
+        engine.start(1000);
+
+        System.out.print("Enter your name: ");
+        String name = sc.nextLine();
+
+        boolean saved = users.exists(name);
+        User user = users.get(name);
+        System.out.println(saved ? " Portfolio loaded." : "No saved portfolio found.");
+
+        while (true) {
+            market.displayMarket();
+
+            System.out.println("\nMenu:");
+            System.out.println("1. Buy Stock");
+            System.out.println("2. Sell Stock");
+            System.out.println("3. Place Limit Order");
+            System.out.println("4. Cancel Order");
+            System.out.println("5. View Portfolio");
+            System.out.println("6. Price History");
+            System.out.println("7. Save & Exit");
+            System.out.print("Choose an option: ");
+
+            String choice = sc.nextLine();
+
+            switch (choice) {
+                case "1":
+                    System.out.print("Enter stock symbol to buy: ");
+                    String buySymbol = sc.nextLine().toUpperCase();
+                    System.out.print("Enter quantity: ");
+                    int buyQty = sc.nextInt(); sc.nextLine();
+                    user.buyStock(buySymbol, buyQty, exchange);
+                    break;
+                case "2":
+                    System.out.print("Enter stock symbol to sell: ");
+                    String sellSymbol = sc.nextLine().toUpperCase();
+                    System.out.print("Enter quantity: ");
+                    int sellQty = sc.nextInt(); sc.nextLine();
+                    user.sellStock(sellSymbol, sellQty, exchange);
+                    break;
+                case "3":
+                    System.out.print("Enter stock symbol: ");
+                    String limitSymbol = sc.nextLine().toUpperCase();
+                    System.out.print("Buy or sell (BUY, SELL): ");
+                    Side side;
+                    try {
+                        side = Side.valueOf(sc.nextLine().trim().toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Invalid side.");
+                        break;
+                    }
+                    System.out.print("Enter quantity: ");
+                    int limitQty = sc.nextInt(); sc.nextLine();
+                    System.out.print("Enter limit price: ");
+                    double limitPrice = sc.nextDouble(); sc.nextLine();
+                    user.placeLimitOrder(limitSymbol, side, limitQty, limitPrice, exchange);
+                    break;
+                case "4":
+                    System.out.print("Enter order number: ");
+                    long orderId = sc.nextLong(); sc.nextLine();
+                    user.cancelOrder(orderId, exchange);
+                    break;
+                case "5":
+                    user.viewPortfolio();
+                    System.out.printf(" Realized P&L: $%.2f\n", history.realizedPnl(name, 0, Long.MAX_VALUE));
+                    break;
+                case "6":
+                    System.out.print("Enter stock symbol: ");
+                    int historyId = market.idOf(sc.nextLine().trim());
+                    if (historyId < 0) {
+                        System.out.println("Stock not found.");
+                        break;
+                    }
+                    long now = System.currentTimeMillis();
+                    history.printBars(market, historyId, now - now % 60_000 - 4 * 60_000, now + 1, 60_000);
+                    break;
+                case "7":
+                    exchange.cancelAll(user);
+                    try {
+                        users.save();
+                        store.close();
+                        System.out.println("Portfolio saved.");
+                    } catch (IOException e) {
+                        System.out.println(" Error saving portfolio.");
+                    }
+                    engine.stop();
+                    System.out.println("👋 Exiting... Goodbye!");
+                    return;
+                default:
+                    System.out.println("Invalid option.");
+            }
+
+            System.out.println("\nPress Enter to continue...");
+            sc.nextLine();
+        }
+    }
+}
@@ -1,167 +1,553 @@
-import java.util.ArrayList;
-import java.util.Scanner;
-
-// Class to represent a Student
-class Student {
-    private String name;
-    private ArrayList<Double> grades;
-
-    public Student(String name) {
-        this.name = name;
-        grades = new ArrayList<>();
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public void addGrade(double grade) {
-        grades.add(grade);
-    }
-
-    public ArrayList<Double> getGrades() {
-        return grades;
-    }
-
-    public double getAverage() {
-        if (grades.isEmpty()) return 0;
-        double sum = 0;
-        for (double grade : grades) {
-            sum += grade;
-        }
-        return sum / grades.size();
-    }
-
-    public double getHighest() {
-        if (grades.isEmpty()) return 0;
-        double max = grades.get(0);
-        for (double grade : grades) {
-            if (grade > max) {
-                max = grade;
-            }
-        }
-        return max;
-    }
-
-    public double getLowest() {
-        if (grades.isEmpty()) return 0;
-        double min = grades.get(0);
-        for (double grade : grades) {
-            if (grade < min) {
-                min = grade;
-            }
-        }
-        return min;
-    }
-}
-
-// Main Application Class
-public class StudentGradeManager {
-    private static final Scanner scanner = new Scanner(System.in);
-    private static final ArrayList<Student> students = new ArrayList<>();
-
-    public static void main(String[] args) {
-        int choice;
-
-        do {
-            System.out.println("\n=== Student Grade Manager ===");
-            System.out.println("1. Add Student");
-            System.out.println("2. Add Grade to Student");
-            System.out.println("3. Display Summary Report");
-            System.out.println("4. Exit");
-            System.out.print("Enter your choice: ");
-            choice = getIntInput();
-
-            switch (choice) {
-                case 1 -> addStudent();
-                case 2 -> addGradeToStudent();
-                case 3 -> displaySummaryReport();
-                case 4 -> System.out.println("Exiting...");
-                default -> System.out.println("Invalid choice. Try again.");
-            }
-        } while (choice != 4);
-    }
-
-    private static void addStudent() {
-        System.out.print("Enter student name: ");
-        String name = scanner.nextLine();
-        students.add(new Student(name));
-        System.out.println("Student added successfully.");
-    }
-
-    private static void addGradeToStudent() {
-        if (students.isEmpty()) {
-            System.out.println("No students found. Add a student first.");
-            return;
-        }
-
-        System.out.print("Enter student name: ");
-        String name = scanner.nextLine();
-        Student student = findStudentByName(name);
-
-        if (student != null) {
-            System.out.print("Enter grade (0 - 100): ");
-            double grade = getDoubleInput();
-            if (grade >= 0 && grade <= 100) {
-                student.addGrade(grade);
-                System.out.println("Grade added successfully.");
-            } else {
-                System.out.println("Invalid grade. Must be between 0 and 100.");
-            }
-        } else {
-            System.out.println("Student not found.");
-        }
-    }
-
-    private static void displaySummaryReport() {
-        if (students.isEmpty()) {
-            System.out.println("No students to display.");
-            return;
-        }
-
-        System.out.println("\n--- Summary Report ---");
-        for (Student student : students) {
-            System.out.println("Name: " + student.getName());
-            System.out.println("Grades: " + student.getGrades());
-            if (!student.getGrades().isEmpty()) {
-                System.out.printf("Average: %.2f\n", student.getAverage());
-                System.out.printf("Highest: %.2f\n", student.getHighest());
-                System.out.printf("Lowest: %.2f\n", student.getLowest());
-            } else {
-                System.out.println("No grades available.");
-            }
-            System.out.println();
-        }
-    }
-
-    private static Student findStudentByName(String name) {
-        for (Student student : students) {
-            if (student.getName().equalsIgnoreCase(name.trim())) {
-                return student;
-            }
-        }
-        return null;
-    }
-
-    private static int getIntInput() {
-        while (!scanner.hasNextInt()) {
-            System.out.print("Please enter a valid number: ");
-            scanner.next(); // discard invalid input
-        }
-        int num = scanner.nextInt();
-        scanner.nextLine(); // consume newline
-        return num;
-    }
-
-    private static double getDoubleInput() {
-        while (!scanner.hasNextDouble()) {
-            System.out.print("Please enter a valid decimal number: ");
-            scanner.next(); // discard invalid input
-        }
-        double num = scanner.nextDouble();
-        scanner.nextLine(); // consume newline
-        return num;
-    }
-}
-
-
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Streaming estimate of one quantile using the P-squared algorithm: five marker heights are nudged
+// towards their ideal ranks as values arrive, so the estimate costs O(1) time and space per value.
+class QuantileSketch {
+    private final double p;
+    private final double[] heights = new double[5];
+    private final int[] ranks = new int[5]; // 0-based rank of each marker among the values seen
+    private int count;
+
+    // Starts from the first five values, in any order
+    QuantileSketch(double p, double[] first) {
+        this.p = p;
+        System.arraycopy(first, 0, heights, 0, 5);
+        Arrays.sort(heights);
+        for (int i = 0; i < 5; i++) ranks[i] = i;
+        count = 5;
+    }
+
+    void add(double x) {
+        int k;
+        if (x < heights[0]) {
+            heights[0] = x;
+            k = 0;
+        } else if (x >= heights[4]) {
+            heights[4] = x;
+            k = 3;
+        } else {
+            k = 0;
+            while (x >= heights[k + 1]) k++;
+        }
+        for (int i = k + 1; i < 5; i++) ranks[i]++;
+        count++;
+
+        // Move each middle marker one rank towards where the quantile says it should be
+        for (int i = 1; i <= 3; i++) {
+            double fraction = i == 1 ? p / 2 : i == 2 ? p : (1 + p) / 2;
+            double off = (count - 1) * fraction - ranks[i];
+            if (off >= 1 && ranks[i + 1] - ranks[i] > 1 || off <= -1 && ranks[i - 1] - ranks[i] < -1) {
+                int d = off > 0 ? 1 : -1;
+                double h = parabolic(i, d);
+                if (h <= heights[i - 1] || h >= heights[i + 1]) {
+                    h = heights[i] + d * (heights[i + d] - heights[i]) / (ranks[i + d] - ranks[i]);
+                }
+                heights[i] = h;
+                ranks[i] += d;
+            }
+        }
+    }
+
+    private double parabolic(int i, int d) {
+        return heights[i] + (double) d / (ranks[i + 1] - ranks[i - 1])
+                * ((ranks[i] - ranks[i - 1] + d) * (heights[i + 1] - heights[i]) / (ranks[i + 1] - ranks[i])
+                + (ranks[i + 1] - ranks[i] - d) * (heights[i] - heights[i - 1]) / (ranks[i] - ranks[i - 1]));
+    }
+
+    double estimate() {
+        return heights[2];
+    }
+}
+
+// Class to represent a Student
+// Grades may be submitted from several threads at once, so every access takes the student's lock.
+// Grades are kept in a primitive array with running statistics, so every summary is O(1).
+class Student {
+    static final int EXACT_MEDIAN_GRADES = 1024; // the sketches are too coarse for fewer grades than this
+    static final double[] PERCENTILES = {0.1, 0.5, 0.9}; // reported quantiles: 10th, median, 90th
+
+    private final int id;
+    private String name;
+    private double[] grades = new double[4];
+    private int count;
+    private double sum, min, max;
+    private double mean, squares; // Welford's running mean and sum of squared deviations
+    private QuantileSketch[] sketches; // one per PERCENTILES entry, once there are more than EXACT_MEDIAN_GRADES
+
+    public Student(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized void addGrade(double grade) {
+        if (count == grades.length) grades = Arrays.copyOf(grades, count * 2);
+        grades[count++] = grade;
+        sum += grade;
+        min = count == 1 ? grade : Math.min(min, grade);
+        max = count == 1 ? grade : Math.max(max, grade);
+        double delta = grade - mean;
+        mean += delta / count;
+        squares += delta * (grade - mean);
+        if (sketches != null) {
+            for (QuantileSketch sketch : sketches) sketch.add(grade);
+        } else if (count > EXACT_MEDIAN_GRADES) {
+            sketches = new QuantileSketch[PERCENTILES.length];
+            for (int k = 0; k < PERCENTILES.length; k++) {
+                sketches[k] = new QuantileSketch(PERCENTILES[k], grades);
+                for (int i = 5; i < count; i++) sketches[k].add(grades[i]);
+            }
+        }
+    }
+
+    public synchronized double[] getGrades() {
+        return Arrays.copyOf(grades, count);
+    }
+
+    public synchronized int getGradeCount() {
+        return count;
+    }
+
+    public synchronized double getAverage() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    public synchronized double getHighest() {
+        return max;
+    }
+
+    public synchronized double getLowest() {
+        return min;
+    }
+
+    // Population standard deviation
+    public synchronized double getStandardDeviation() {
+        return count == 0 ? 0 : Math.sqrt(squares / count);
+    }
+
+    public synchronized double getMedian() {
+        return getPercentiles()[1];
+    }
+
+    // The PERCENTILES of the grades, in that order. Exact for a short grade list, interpolating between
+    // the two nearest grades; estimated by the sketches for a long one.
+    public synchronized double[] getPercentiles() {
+        double[] result = new double[PERCENTILES.length];
+        if (sketches != null) {
+            for (int k = 0; k < PERCENTILES.length; k++) result[k] = sketches[k].estimate();
+        } else if (count > 0) {
+            double[] sorted = Arrays.copyOf(grades, count);
+            Arrays.sort(sorted);
+            for (int k = 0; k < PERCENTILES.length; k++) {
+                double rank = (count - 1) * PERCENTILES[k];
+                int below = (int) rank;
+                result[k] = below + 1 < count
+                        ? sorted[below] + (rank - below) * (sorted[below + 1] - sorted[below]) : sorted[below];
+            }
+        }
+        return result;
+    }
+}
+
+// Students by id, by normalized name, and in name order for prefix search. Lookups take constant
+// time, and name lookups never block; registering takes the registry lock so ids stay dense.
+class StudentRegistry {
+    private final List<Student> byId = new ArrayList<>();
+    private final Map<String, Student> byName = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Student> sortedNames = new ConcurrentSkipListMap<>();
+
+    // Names match ignoring case and surrounding whitespace
+    static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Adds a student under the next id, or returns null if the name is already taken
+    synchronized Student register(String name) {
+        String key = normalize(name);
+        if (key.isEmpty() || byName.containsKey(key)) return null;
+        Student student = new Student(byId.size(), name.trim());
+        byId.add(student);
+        sortedNames.put(key, student);
+        byName.put(key, student);
+        return student;
+    }
+
+    Student findByName(String name) {
+        return byName.get(normalize(name));
+    }
+
+    synchronized Student findById(int id) {
+        return id >= 0 && id < byId.size() ? byId.get(id) : null;
+    }
+
+    // Up to limit students whose names start with prefix, in name order
+    List<Student> findByPrefix(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<Student> found = new ArrayList<>();
+        for (Student student : sortedNames.tailMap(key).values()) {
+            if (found.size() == limit || !normalize(student.getName()).startsWith(key)) break;
+            found.add(student);
+        }
+        return found;
+    }
+
+    // Students in the order they were added
+    synchronized List<Student> all() {
+        return new ArrayList<>(byId);
+    }
+
+    synchronized boolean isEmpty() {
+        return byId.isEmpty();
+    }
+}
+
+// A snapshot of every student's statistics, held column by column, plus class-wide aggregates. Built
+// and written with parallel streams on the common fork-join pool; output is formatted in parallel a
+// batch of students at a time and streamed in order, so the whole report is never held as text.
+class GradeReport {
+    static final int TOP = 10;
+    static final int BATCH = 4096; // students formatted per parallel step
+    static final int HUNDREDTHS = 10_001; // class histogram bins: every grade to 0.01
+
+    final Student[] students;
+    final double[][] grades; // each student's grades, copied under the same lock as the statistics
+    final double[] averages, deviations, highs, lows;
+    final double[][] percentilesOf; // each student's Student.PERCENTILES of their own grades
+    final int[] ranks; // by average, 1 = best, shared on a tie; 0 for no grades
+    final double[] percentiles; // share of graded students with a lower average
+    final long[] histogram; // grades counted by hundredths
+    final int[] top; // indexes of the best averages
+    final int graded;
+    final long gradeCount;
+    final double mean, deviation;
+
+    GradeReport(List<Student> all) {
+        students = all.toArray(new Student[0]);
+        int n = students.length;
+        grades = new double[n][];
+        averages = new double[n];
+        percentilesOf = new double[n][];
+        deviations = new double[n];
+        highs = new double[n];
+        lows = new double[n];
+        ranks = new int[n];
+        percentiles = new double[n];
+
+        // Fill the columns and count every grade into per-thread histograms, merged at the end
+        histogram = IntStream.range(0, n).parallel().collect(() -> new long[HUNDREDTHS], (counts, i) -> {
+            Student student = students[i];
+            synchronized (student) {
+                grades[i] = student.getGrades();
+                averages[i] = student.getAverage();
+                percentilesOf[i] = student.getPercentiles();
+                deviations[i] = student.getStandardDeviation();
+                highs[i] = student.getHighest();
+                lows[i] = student.getLowest();
+            }
+            for (double grade : grades[i]) counts[(int) Math.round(grade * 100)]++;
+        }, (a, b) -> {
+            for (int bin = 0; bin < HUNDREDTHS; bin++) a[bin] += b[bin];
+        });
+
+        // Ranks and percentiles by binary search in the sorted averages of graded students
+        double[] sorted = IntStream.range(0, n).parallel().filter(i -> grades[i].length > 0)
+                .mapToDouble(i -> averages[i]).toArray();
+        Arrays.parallelSort(sorted);
+        graded = sorted.length;
+        IntStream.range(0, n).parallel().filter(i -> grades[i].length > 0).forEach(i -> {
+            int below = firstAtLeast(sorted, averages[i]);
+            int notAbove = firstAtLeast(sorted, Math.nextUp(averages[i]));
+            ranks[i] = graded - notAbove + 1;
+            percentiles[i] = 100.0 * below / graded;
+        });
+        top = IntStream.range(0, n).parallel().filter(i -> ranks[i] > 0 && ranks[i] <= TOP).boxed()
+                .sorted((a, b) -> ranks[a] != ranks[b] ? Integer.compare(ranks[a], ranks[b]) : Integer.compare(a, b))
+                .limit(TOP).mapToInt(Integer::intValue).toArray();
+
+        // Class mean and deviation over all grades, merged from each student's count, mean and deviation
+        gradeCount = IntStream.range(0, n).parallel().mapToLong(i -> grades[i].length).sum();
+        double sum = IntStream.range(0, n).parallel().mapToDouble(i -> grades[i].length * averages[i]).sum();
+        double squares = IntStream.range(0, n).parallel()
+                .mapToDouble(i -> grades[i].length * (deviations[i] * deviations[i] + averages[i] * averages[i])).sum();
+        mean = gradeCount == 0 ? 0 : sum / gradeCount;
+        deviation = gradeCount == 0 ? 0 : Math.sqrt(Math.max(0, squares / gradeCount - mean * mean));
+    }
+
+    static int firstAtLeast(double[] sorted, double value) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Smallest grade with at least p percent of all grades at or below it
+    double gradePercentile(double p) {
+        long needed = Math.max(1, (long) Math.ceil(p / 100 * gradeCount));
+        long seen = 0;
+        for (int bin = 0; bin < HUNDREDTHS; bin++) {
+            seen += histogram[bin];
+            if (seen >= needed) return bin / 100.0;
+        }
+        return 100;
+    }
+
+    void write(Writer out) throws IOException {
+        out.write("\n--- Summary Report ---\n");
+        for (int from = 0; from < students.length; from += BATCH * 16) {
+            int start = from, end = Math.min(students.length, from + BATCH * 16);
+            String batch = IntStream.range(0, (end - start + BATCH - 1) / BATCH).parallel()
+                    .mapToObj(b -> format(start + b * BATCH, Math.min(end, start + (b + 1) * BATCH)))
+                    .collect(Collectors.joining());
+            out.write(batch);
+        }
+        writeClassSummary(out);
+        out.flush();
+    }
+
+    String format(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            sb.append("ID: ").append(students[i].getId()).append('\n');
+            sb.append("Name: ").append(students[i].getName()).append('\n');
+            sb.append("Grades: ").append(Arrays.toString(grades[i])).append('\n');
+            if (grades[i].length > 0) {
+                fixed(sb.append("Average: "), averages[i], 100).append('\n');
+                fixed(sb.append("Median: "), percentilesOf[i][1], 100).append('\n');
+                fixed(sb.append("10th-90th Percentile: "), percentilesOf[i][0], 100).append(" - ");
+                fixed(sb, percentilesOf[i][2], 100).append('\n');
+                fixed(sb.append("Std Dev: "), deviations[i], 100).append('\n');
+                fixed(sb.append("Highest: "), highs[i], 100).append('\n');
+                fixed(sb.append("Lowest: "), lows[i], 100).append('\n');
+                sb.append("Rank: ").append(ranks[i]).append(" of ").append(graded).append('\n');
+                fixed(sb.append("Percentile: "), percentiles[i], 10).append('\n');
+            } else {
+                sb.append("No grades available.\n");
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    // Appends a non-negative value rounded to 1/scale (10 or 100), like %.1f or %.2f without the
+    // cost of String.format for every number of every student. Near a half the product is inexact, so
+    // those few values are rounded half up from their decimal form, as String.format does.
+    static StringBuilder fixed(StringBuilder sb, double value, long scale) {
+        double scaled = value * scale;
+        long units = Math.round(scaled);
+        if (Math.abs(scaled - Math.floor(scaled) - 0.5) < 1e-6) {
+            units = BigDecimal.valueOf(value).setScale(scale == 100 ? 2 : 1, RoundingMode.HALF_UP).unscaledValue()
+                    .longValue();
+        }
+        long fraction = units % scale;
+        sb.append(units / scale).append('.');
+        if (scale == 100 && fraction < 10) sb.append('0');
+        return sb.append(fraction);
+    }
+
+    void writeClassSummary(Writer out) throws IOException {
+        StringBuilder sb = new StringBuilder("--- Class Summary ---\n");
+        sb.append("Students: ").append(students.length).append(" (").append(graded).append(" with grades)\n");
+        sb.append("Grades: ").append(gradeCount).append('\n');
+        if (gradeCount > 0) {
+            sb.append(String.format("Mean: %.2f\n", mean));
+            sb.append(String.format("Std Dev: %.2f\n", deviation));
+            sb.append(String.format("Percentiles: 10th %.2f, 25th %.2f, median %.2f, 75th %.2f, 90th %.2f\n",
+                    gradePercentile(10), gradePercentile(25), gradePercentile(50), gradePercentile(75),
+                    gradePercentile(90)));
+
+            // Ten bands of ten points; 100 falls in the top one
+            long[] bands = new long[10];
+            for (int bin = 0; bin < HUNDREDTHS; bin++) bands[Math.min(bin / 1000, 9)] += histogram[bin];
+            long most = Arrays.stream(bands).max().getAsLong();
+            sb.append("Histogram:\n");
+            for (int band = 0; band < 10; band++) {
+                String bar = "#".repeat((int) (bands[band] * 40 / most));
+                sb.append(String.format("%3d-%-3d %-40s %d\n", band * 10, band == 9 ? 100 : band * 10 + 9, bar,
+                        bands[band]));
+            }
+
+            sb.append("Top ").append(top.length).append(" by average:\n");
+            for (int i : top) {
+                sb.append(String.format("%d. %s (ID %d): %.2f\n", ranks[i], students[i].getName(),
+                        students[i].getId(), averages[i]));
+            }
+        }
+        out.write(sb.toString());
+    }
+}
+
+// Main Application Class
+public class StudentGradeManager {
+    private static final Scanner scanner = new Scanner(System.in);
+    private static final StudentRegistry students = new StudentRegistry();
+    private static final int SEARCH_RESULTS = 20;
+
+    public static void main(String[] args) {
+        int choice;
+
+        do {
+            System.out.println("\n=== Student Grade Manager ===");
+            System.out.println("1. Add Student");
+            System.out.println("2. Add Grade to Student");
+            System.out.println("3. Display Summary Report");
+            System.out.println("4. Search Students by Name");
+            System.out.println("5. Save Summary Report to File");
+            System.out.println("6. Exit");
+            System.out.print("Enter your choice: ");
+            choice = getIntInput();
+
+            switch (choice) {
+                case 1 -> addStudent();
+                case 2 -> addGradeToStudent();
+                case 3 -> displaySummaryReport();
+                case 4 -> searchStudents();
+                case 5 -> saveSummaryReport();
+                case 6 -> System.out.println("Exiting...");
+                default -> System.out.println("Invalid choice. Try again.");
+            }
+        } while (choice != 6);
+    }
+
+    private static void addStudent() {
+        System.out.print("Enter student name: ");
+        String name = scanner.nextLine();
+        Student student = students.register(name);
+        if (student == null) {
+            System.out.println("A student with that name already exists, or the name is empty.");
+            return;
+        }
+        System.out.println("Student added successfully with ID " + student.getId() + ".");
+    }
+
+    private static void addGradeToStudent() {
+        if (students.isEmpty()) {
+            System.out.println("No students found. Add a student first.");
+            return;
+        }
+
+        System.out.print("Enter student name or ID: ");
+        String name = scanner.nextLine();
+        Student student = findStudent(name);
+
+        if (student != null) {
+            System.out.print("Enter grade (0 - 100): ");
+            double grade = getDoubleInput();
+            if (grade >= 0 && grade <= 100) {
+                student.addGrade(grade);
+                System.out.println("Grade added successfully.");
+            } else {
+                System.out.println("Invalid grade. Must be between 0 and 100.");
+            }
+        } else {
+            System.out.println("Student not found.");
+        }
+    }
+
+    private static void displaySummaryReport() {
+        if (students.isEmpty()) {
+            System.out.println("No students to display.");
+            return;
+        }
+
+        // System.out stays open; the writer only buffers in front of it
+        try {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+            new GradeReport(students.all()).write(out);
+        } catch (IOException e) {
+            System.out.println("Failed to print report: " + e.getMessage());
+        }
+    }
+
+    private static void saveSummaryReport() {
+        if (students.isEmpty()) {
+            System.out.println("No students to display.");
+            return;
+        }
+
+        System.out.print("Enter file name: ");
+        String file = scanner.nextLine().trim();
+        long start = System.nanoTime();
+        try (Writer out = Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8)) {
+            new GradeReport(students.all()).write(out);
+            System.out.printf("Report saved to %s in %d ms.\n", file, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            System.out.println("Failed to save report: " + e.getMessage());
+        }
+    }
+
+    private static void searchStudents() {
+        System.out.print("Enter the start of a name: ");
+        String prefix = scanner.nextLine();
+        List<Student> found = students.findByPrefix(prefix, SEARCH_RESULTS);
+        if (found.isEmpty()) {
+            System.out.println("No matching students.");
+            return;
+        }
+        for (Student student : found) {
+            System.out.println(student.getId() + ": " + student.getName());
+        }
+        if (found.size() == SEARCH_RESULTS) {
+            System.out.println("(showing the first " + SEARCH_RESULTS + "; type more of the name to narrow it down)");
+        }
+    }
+
+    // A name, or failing that a numeric student ID
+    private static Student findStudent(String nameOrId) {
+        Student student = students.findByName(nameOrId);
+        if (student == null && nameOrId.trim().matches("\\d{1,9}")) {
+            student = students.findById(Integer.parseInt(nameOrId.trim()));
+        }
+        return student;
+    }
+
+    private static int getIntInput() {
+        while (!scanner.hasNextInt()) {
+            System.out.print("Please enter a valid number: ");
+            scanner.next(); // discard invalid input
+        }
+        int num = scanner.nextInt();
+        scanner.nextLine(); // consume newline
+        return num;
+    }
+
+    private static double getDoubleInput() {
+        while (!scanner.hasNextDouble()) {
+            System.out.print("Please enter a valid decimal number: ");
+            scanner.next(); // discard invalid input
+        }
+        double num = scanner.nextDouble();
+        scanner.nextLine(); // consume newline
+        return num;
+    }
+}
+
+
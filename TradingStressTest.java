@@ -0,0 +1,181 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Contention stress test for the trading service: thousands of accounts place random orders from a
+// worker pool while prices move, and no balance may go negative and no holding may be oversold.
+// Invalid orders must be refused without touching the account.
+//
+//   javac -encoding UTF-8 StockTradingPlatform.java TradingStressTest.java
+//   java TradingStressTest [orders] [accounts] [threads]
+//
+// Prints the violations found and exits with status 1 if there were any.
+public class TradingStressTest {
+    static final String[] SYMBOLS = {"AAPL", "GOOGL", "MSFT", "TSLA"};
+
+    static final Set<String> failures = new LinkedHashSet<>(); // each distinct violation once
+
+    public static void main(String[] args) throws Exception {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+        // Fills print one line each; keep them out of the test's output
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Path dir = Files.createTempDirectory("trading-stress");
+        Market market = new Market();
+        MatchingEngine exchange = new MatchingEngine(market, new TradeHistory(market));
+        MarketDataEngine marketData = new MarketDataEngine(market);
+        MarketMaker maker = new MarketMaker(exchange, 0.001, 1000);
+        for (int id = 0; id < market.size; id++) maker.quote(id, market.price(id));
+        UserRegistry users = new UserRegistry(new PortfolioValuation(market), new AccountStore(dir, 50));
+        TradingService service = new TradingService(exchange, users, threads);
+        try {
+            invalidOrders(exchange, service, users);
+            marketData.subscribe(maker);
+            marketData.start(1);
+            long start = System.nanoTime();
+            int checks = contention(exchange, service, users, market, orders, accounts);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            marketData.stop();
+            settled(exchange, users);
+            System.setOut(console);
+            System.out.printf("%d orders from %d accounts on %d threads in %d ms; %d mid-run audits%n", orders,
+                    users.users.size(), threads, millis, checks);
+        } finally {
+            System.setOut(console);
+            service.shutdown();
+            users.store.close();
+        }
+
+        for (String failure : failures) System.out.println("FAIL: " + failure);
+        System.out.println(failures.isEmpty() ? "No violations." : failures.size() + " violations.");
+        if (!failures.isEmpty()) System.exit(1);
+    }
+
+    static void check(boolean ok, String failure) {
+        if (!ok) {
+            synchronized (failures) {
+                failures.add(failure);
+            }
+        }
+    }
+
+    // Orders with a non-positive quantity or price, or a cost that overflows, are refused and leave the
+    // account as it was
+    static void invalidOrders(MatchingEngine exchange, TradingService service, UserRegistry users) {
+        User user = users.get("invalid");
+        user.quiet = true;
+        int id = exchange.market.idOf("AAPL");
+        check(exchange.submitMarket(user, id, Side.BUY, 10) == 10, "setup buy of 10 shares did not fill");
+        long balance = user.balance;
+
+        check(exchange.submitLimit(user, id, Side.BUY, Money.of(-100), 10) == -1, "limit buy at -$100 accepted");
+        check(exchange.submitLimit(user, id, Side.BUY, 0, 10) == -1, "limit buy at $0 accepted");
+        check(exchange.submitLimit(user, id, Side.BUY, Money.of(0.004), 10) == -1, "limit buy under a cent accepted");
+        check(exchange.submitLimit(user, id, Side.BUY, Money.of(100), -10) == -1, "limit buy of -10 shares accepted");
+        check(exchange.submitLimit(user, id, Side.SELL, Money.of(100), -5) == -1, "limit sell of -5 shares accepted");
+        check(exchange.submitLimit(user, id, Side.SELL, Money.of(100), 0) == -1, "limit sell of 0 shares accepted");
+        check(exchange.submitMarket(user, id, Side.BUY, -3) == -1, "market buy of -3 shares accepted");
+        check(exchange.submitMarket(user, id, Side.SELL, -3) == -1, "market sell of -3 shares accepted");
+        check(exchange.submitLimit(user, id, Side.BUY, Money.of(10_000), 1_000_000_000) == -1,
+                "limit buy costing more than a long holds accepted");
+        check(service.submitLimit("invalid", "AAPL", Side.BUY, Money.of(10_000), 1_000_000_000).join() == -1,
+                "service limit buy costing more than a long holds accepted");
+
+        expectRejected(service.submitLimit("invalid", "AAPL", Side.BUY, Money.of(-100), 10), "service limit at -$100");
+        expectRejected(service.submitLimit("invalid", "AAPL", Side.SELL, Money.of(100), -5), "service sell of -5");
+        expectRejected(service.submitMarket("invalid", "AAPL", Side.BUY, 0), "service market buy of 0");
+        expectRejected(service.submitMarket("invalid", "NOPE", Side.BUY, 1), "service order for an unknown symbol");
+
+        synchronized (user) {
+            PortfolioEntry entry = user.portfolio.get("AAPL");
+            check(user.balance == balance, "invalid orders changed the balance");
+            check(user.reservedCash == 0, "invalid orders reserved cash: " + user.reservedCash);
+            check(entry != null && entry.quantity == 10 && entry.reserved == 0, "invalid orders changed the holding");
+        }
+        // Would oversell if the refused -5 sell had reserved negative shares
+        check(exchange.submitLimit(user, id, Side.SELL, Money.of(1_000_000), 15) == -1, "sold 15 of 10 shares");
+    }
+
+    static void expectRejected(CompletableFuture<?> future, String what) {
+        try {
+            future.join();
+            check(false, what + " was accepted");
+        } catch (CompletionException e) {
+            check(e.getCause() instanceof IllegalArgumentException, what + " failed with " + e.getCause());
+        }
+    }
+
+    // Random market and limit orders and cancels from many accounts, with an auditor checking every
+    // account under its monitor while the orders run. Returns the number of audits made.
+    static int contention(MatchingEngine exchange, TradingService service, UserRegistry users, Market market,
+            int orders, int accounts) throws InterruptedException {
+        for (int k = 0; k < accounts; k++) users.get("u" + k).quiet = true;
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger audits = new AtomicInteger();
+        Thread auditor = new Thread(() -> {
+            while (running.get()) {
+                for (User user : users.users.values()) audit(user, false);
+                audits.incrementAndGet();
+            }
+        }, "auditor");
+        auditor.start();
+
+        Random random = new Random(7);
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            String user = "u" + random.nextInt(accounts);
+            String symbol = SYMBOLS[random.nextInt(SYMBOLS.length)];
+            int quantity = 1 + random.nextInt(20);
+            switch (random.nextInt(4)) {
+                case 0 -> pending.add(service.submitMarket(user, symbol, Side.BUY, quantity));
+                case 1 -> pending.add(service.submitMarket(user, symbol, Side.SELL, quantity));
+                case 2 -> {
+                    long price = Math.round(market.price(market.idOf(symbol)) * (0.99 + random.nextDouble() * 0.02));
+                    pending.add(service.submitLimit(user, symbol, random.nextBoolean() ? Side.BUY : Side.SELL, price,
+                            quantity));
+                }
+                default -> pending.add(service.cancel(user, exchange.nextOrderId.get() - 1 - random.nextInt(100)));
+            }
+        }
+        for (CompletableFuture<?> future : pending) future.join();
+        running.set(false);
+        auditor.join();
+        return audits.get();
+    }
+
+    // Once every open order is cancelled, nothing may stay reserved
+    static void settled(MatchingEngine exchange, UserRegistry users) {
+        for (User user : users.users.values()) {
+            exchange.cancelAll(user);
+            audit(user, true);
+        }
+    }
+
+    static void audit(User user, boolean settled) {
+        synchronized (user) {
+            check(user.balance >= 0, user.name + " balance went negative: " + user.balance);
+            check(user.reservedCash >= 0, user.name + " reserved cash went negative: " + user.reservedCash);
+            check(!settled || user.reservedCash == 0, user.name + " still reserves cash: " + user.reservedCash);
+            for (PortfolioEntry entry : user.portfolio.values()) {
+                String holding = user.name + " symbol " + entry.symbolId + ": " + entry.quantity + " held, "
+                        + entry.reserved + " reserved";
+                check(entry.quantity > 0, holding);
+                check(entry.reserved >= 0 && entry.reserved <= entry.quantity, holding);
+                check(!settled || entry.reserved == 0, holding);
+            }
+        }
+    }
+}